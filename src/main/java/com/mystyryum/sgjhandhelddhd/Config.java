@@ -24,6 +24,38 @@ public class Config {
             .comment("Default spawn dimension that will be loaded first into the database(default: minecraft:overworld")
             .define("Default spawn dimension: ", "minecraft:overworld");
 
+    public static final ModConfigSpec.BooleanValue REGISTERALLDEFAULTGATES = BUILDER
+            .comment("on startup, register a default gate for every loaded dimension that SGJourney gives an address and that has none yet (can also be run once with /gatabase defaults). Off by default, so existing servers only get the spawn dimension's default gate as before")
+            .define("Register default gates for all dimensions: ", false);
+
+    public static final ModConfigSpec.IntValue JOURNALCOMPACTTHRESHOLD = BUILDER
+            .comment("number of journaled Gatabase changes before they are folded into a new GataBase.json snapshot")
+            .defineInRange("Journal entries before compaction: ", 256, 1, 1000000);
+
+    public static final ModConfigSpec.IntValue SAVECOALESCEMS = BUILDER
+            .comment("milliseconds the Gatabase writer waits to gather further changes into the same disk flush (0 = flush immediately)")
+            .defineInRange("Save coalescing window (ms): ", 50, 0, 10000);
+
+    public static final ModConfigSpec.ConfigValue<String> SNAPSHOTFORMAT = BUILDER
+            .comment("on-disk format of Gatabase snapshots and backups: binary (compact, fast to load) or json (hand editable). Either format is read back regardless of this setting")
+            .defineInList("Snapshot format: ", "binary", List.of("binary", "json"));
+
+    public static final ModConfigSpec.BooleanValue MAPPEDSNAPSHOTLOAD = BUILDER
+            .comment("memory-map binary Gatabase snapshots on startup and decode whitelists/blacklists only when first used. Off by default: while mapped, the snapshot file cannot be replaced on Windows, so saves there fail until the server restarts. Only enable on other systems")
+            .define("Memory-map snapshot on load: ", false);
+
+    public static final ModConfigSpec.ConfigValue<String> STORAGEBACKEND = BUILDER
+            .comment("where the Gatabase is persisted: single (one GataBase.json snapshot), sharded (one snapshot file per dimension under plugins/SGHDHD/shards; saves and backups only rewrite the dimensions that changed) or mvstore (embedded database GataBase.mv.db; saves only write changed gates). Switching moves the data over on the next start")
+            .defineInList("Storage backend: ", "single", List.of("single", "sharded", "mvstore"));
+
+    public static final ModConfigSpec.IntValue SYNCCHANGELOGSIZE = BUILDER
+            .comment("number of recent gate changes the server remembers so rejoining players only receive what changed; players further behind get their whole gate list again (0 = always send the whole list)")
+            .defineInRange("Sync change log entries: ", 4096, 0, 1000000);
+
+    public static final ModConfigSpec.IntValue SYNCPAGESPERTICK = BUILDER
+            .comment("number of gate list pages (up to 32 KiB each) sent to one player per server tick; large lists are spread over several ticks instead of being sent at once")
+            .defineInRange("Sync pages per player per tick: ", 4, 1, 64);
+
     // a list of strings that are treated as resource locations for items
 //    public static final ModConfigSpec.ConfigValue<List<? extends String>> ITEM_STRINGS = BUILDER
 //            .comment("A list of items to log on common setup.")
@@ -3,8 +3,8 @@ package com.mystyryum.sgjhandhelddhd;
 
 import com.mystyryum.sgjhandhelddhd.blocks.EditingBlock;
 import com.mystyryum.sgjhandhelddhd.blocks.GateSecBlock;
-import com.mystyryum.sgjhandhelddhd.database.DefaultGateManager;
 import com.mystyryum.sgjhandhelddhd.database.GataBase;
+import com.mystyryum.sgjhandhelddhd.database.GataBaseCommands;
 import com.mystyryum.sgjhandhelddhd.database.GateObject;
 import com.mystyryum.sgjhandhelddhd.database.GateObjectPacket;
 import com.mystyryum.sgjhandhelddhd.items.HandheldDHD;
@@ -34,6 +34,7 @@ import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.neoforged.neoforge.common.NeoForge;
 import net.neoforged.neoforge.event.BuildCreativeModeTabContentsEvent;
+import net.neoforged.neoforge.event.RegisterCommandsEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
 
 import java.util.List;
@@ -56,6 +57,8 @@ public class SGJHandheldDHD {
         modEventBus.addListener(this::commonSetup);
         NeoForge.EVENT_BUS.register(GataBase.GatabaseChangedEvent.class);
         NeoForge.EVENT_BUS.register(this);
+        modEventBus.register(new NetworkTools.GateSends());
+        modEventBus.register(new NetworkTools.DialSends());
 
 
 
@@ -109,17 +112,18 @@ public class SGJHandheldDHD {
     }
 
     @SubscribeEvent
-    public void onServerStopped(ServerStoppedEvent event) {
-        LOGGER.warn("Server has stopped! Gatabase Backup started");
-        DefaultGateManager.clear();
+    public void onRegisterCommands(RegisterCommandsEvent event) {
+        GataBaseCommands.register(event.getDispatcher());
     }
 
     @SubscribeEvent
-    public void onPlayerLogin(PlayerEvent.PlayerLoggedInEvent event) {
-        ServerPlayer player = (ServerPlayer) event.getEntity();
-        UUID id = player.getUUID();
-        NetworkTools.GateSends.LoginUpdate(player, id);
+    public void onServerStopped(ServerStoppedEvent event) {
+        LOGGER.warn("Server has stopped! Gatabase Backup started");
+        GataBase.shutdown();
     }
+
+    // Gate lists are synced on request of the joining client (NetworkTools.GateSends.requestSync),
+    // so a client that is already up to date receives only an empty delta
 }
 
 
@@ -1,6 +1,9 @@
 package com.mystyryum.sgjhandhelddhd;
 
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseChangedEvent;
+import com.mystyryum.sgjhandhelddhd.database.GateDelta;
 import com.mystyryum.sgjhandhelddhd.database.GateObject;
+import com.mystyryum.sgjhandhelddhd.network.NetworkTools;
 import net.minecraft.client.Minecraft;
 import net.neoforged.api.distmarker.Dist;
 import net.neoforged.bus.api.SubscribeEvent;
@@ -8,11 +11,14 @@ import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.event.lifecycle.FMLClientSetupEvent;
+import net.neoforged.neoforge.client.event.ClientPlayerNetworkEvent;
 import net.neoforged.neoforge.client.gui.ConfigurationScreen;
 import net.neoforged.neoforge.client.gui.IConfigScreenFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 // This class will not load on dedicated servers. Accessing client side code from here is safe.
 @Mod(value = SGJHandheldDHD.MOD_ID, dist = Dist.CLIENT)
@@ -34,20 +40,103 @@ public class SGJHandheldDHDClient {
     }
 
 
+    @SubscribeEvent
+    static void onLoggingIn(ClientPlayerNetworkEvent.LoggingIn event) {
+        // Ask for what changed since the cached list; kept across relogs on purpose
+        NetworkTools.GateSends.requestSync();
+    }
+
+
+    /**
+     * The player's gate list, keyed by gate id, with the epoch and version of the
+     * server's database it matches (see {@link GateDelta}).
+     * <p>
+     * Deltas arrive in pages. A full list is assembled separately and replaces the list
+     * once its last page is in; an incremental delta is applied page by page. Either way
+     * the version only moves on with the last page, so an interrupted transfer is simply
+     * repeated on the next sync.
+     */
     public static class ClientGateCache {
 
-        private static List<GateObject> gateList = new ArrayList<>();
+        private static Map<Long, GateObject> gates = new LinkedHashMap<>();
+
+        /** Full list being received; null when no full transfer is in progress. */
+        private static Map<Long, GateObject> incoming = null;
+
+        /** 0 until the first list arrives. */
+        private static long epoch = 0;
+        private static long version = 0;
+
+        public static void setGates(List<GateObject> gateList) {
+            gates = new LinkedHashMap<>();
+            for (GateObject gate : gateList) {
+                gates.put(gate.getId(), gate);
+            }
+            // A list without a version cannot be the base of a delta
+            incoming = null;
+            epoch = 0;
+            version = 0;
+        }
+
+        /**
+         * Applies one page of a delta from the server.
+         *
+         * @param page  the page
+         * @param first whether it is the delta's first page
+         * @param last  whether it is the delta's last page
+         */
+        public static void applyPage(GateDelta page, boolean first, boolean last) {
+            Map<Long, GateObject> target;
+            if (page.isFull()) {
+                if (first) {
+                    incoming = new LinkedHashMap<>();
+                } else if (incoming == null) {
+                    SGJHandheldDHD.LOGGER.warn("Ignoring gate list page without its start: {}", page);
+                    return;
+                }
+                target = incoming;
+            } else if (page.getEpoch() != epoch) {
+                SGJHandheldDHD.LOGGER.warn("Ignoring gate delta for another database: {}", page);
+                return;
+            } else {
+                target = gates;
+            }
 
-        public static void setGates(List<GateObject> gates) {
-            gateList = gates;
+            for (GateDelta.Change change : page.getChanges()) {
+                if (change.getType() == GatabaseChangedEvent.ChangeType.REMOVE) {
+                    target.remove(change.getId());
+                } else {
+                    target.put(change.getId(), change.getGate());
+                }
+            }
+
+            if (last) {
+                if (page.isFull()) {
+                    gates = incoming;
+                    incoming = null;
+                }
+                epoch = page.getEpoch();
+                version = page.getVersion();
+            }
         }
 
         public static List<GateObject> getGates() {
-            return gateList;
+            return new ArrayList<>(gates.values());
+        }
+
+        public static long getEpoch() {
+            return epoch;
+        }
+
+        public static long getVersion() {
+            return version;
         }
 
         public static void clear() {
-            gateList.clear();
+            gates.clear();
+            incoming = null;
+            epoch = 0;
+            version = 0;
         }
     }
 }
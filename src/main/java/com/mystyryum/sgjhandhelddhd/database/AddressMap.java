@@ -0,0 +1,94 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+/**
+ * Immutable map from packed {@link GateAddress} to a value.
+ * <p>
+ * Keys stay primitive: entries are stored in a {@link PersistentMap} under a bijective
+ * mix of the packed address, which is unique per address, so lookups neither box the
+ * key nor compare key objects. Like {@link PersistentMap}, {@link #with} and
+ * {@link #without} return a new map that shares every unchanged node with this one.
+ * <p>
+ * {@link GateAddress#INVALID} can never be used as a key.
+ *
+ * @param <V> value type
+ */
+public final class AddressMap<V> {
+
+    private static final AddressMap<?> EMPTY = new AddressMap<>(PersistentMap.empty());
+
+    private final PersistentMap<Object, V> entries;
+
+    private AddressMap(PersistentMap<Object, V> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> AddressMap<V> empty() {
+        return (AddressMap<V>) EMPTY;
+    }
+
+    /**
+     * @param key a packed address
+     * @return the mapped value, or null
+     */
+    public V get(long key) {
+        if (key == GateAddress.INVALID) {
+            return null;
+        }
+        return entries.getHashed(mix(key), null);
+    }
+
+    /**
+     * @param key a packed address
+     * @return true if the key is mapped
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps a key to a value.
+     *
+     * @param key   a packed address (not {@link GateAddress#INVALID})
+     * @param value the value (not null)
+     * @return a map with the key mapped to the value
+     */
+    public AddressMap<V> with(long key, V value) {
+        if (key == GateAddress.INVALID) {
+            throw new IllegalArgumentException("Cannot map an invalid address");
+        }
+        PersistentMap<Object, V> next = entries.withHashed(mix(key), null, value);
+        return next == entries ? this : new AddressMap<>(next);
+    }
+
+    /**
+     * Removes a key only if it is currently mapped to the given value (by identity).
+     *
+     * @param key   a packed address
+     * @param value the expected value
+     * @return a map without the entry; this map if the key was not mapped to {@code value}
+     */
+    public AddressMap<V> without(long key, V value) {
+        if (key == GateAddress.INVALID) {
+            return this;
+        }
+        PersistentMap<Object, V> next = entries.withoutHashed(mix(key), null, value, true);
+        return next == entries ? this : new AddressMap<>(next);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Multiplying by an odd constant is a bijection on 64-bit values, so distinct addresses
+     * never share a trie key; the xor-shift only adds mixing and is invertible too.
+     */
+    private static long mix(long packed) {
+        long h = packed * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
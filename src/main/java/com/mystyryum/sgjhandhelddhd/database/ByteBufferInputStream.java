@@ -0,0 +1,50 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Unbuffered {@link InputStream} over a {@link ByteBuffer}.
+ * <p>
+ * Reads advance the buffer's own position, so wrapping it in a
+ * {@link java.io.DataInputStream} leaves the buffer positioned right after the
+ * last value read. Works with heap and memory-mapped buffers alike.
+ */
+class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,271 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Memory-compact, immutable form in which {@link GateTable} keeps each gate.
+ * <p>
+ * A {@link GateObject} carries an {@code int[]}, two {@code ArrayList<UUID>}s and five
+ * booleans; with object headers that is several hundred bytes per gate. This class keeps:
+ * <ul>
+ *   <li>the address as one packed {@code long} ({@link GateAddress}); only malformed legacy
+ *       addresses that cannot be packed keep their {@code int[]}</li>
+ *   <li>the five booleans in one flags byte (same bits as {@link GateBinaryCodec})</li>
+ *   <li>the dimension key and creator as shared instances from {@link GateInterner}</li>
+ *   <li>whitelist and blacklist as sorted, duplicate-free {@code long[]}s of (most, least)
+ *       significant bit pairs; empty lists share one array</li>
+ * </ul>
+ * {@link GateObject}s are produced on demand by {@link #toGateObject()}; each call returns a
+ * new, independent copy whose lists are only unpacked when first read.
+ * <p>
+ * Gates loaded lazily from a memory-mapped snapshot keep their list decoder until the blacklist
+ * is first needed. The whitelist is always decoded up front, because {@link GateTable} indexes
+ * gates by whitelisted player.
+ */
+final class CompactGate {
+
+    private static final long[] NO_UUIDS = new long[0];
+
+    private static final int FLAG_PUBLIC = GateBinaryCodec.FLAG_PUBLIC;
+    private static final int FLAG_IRIS = GateBinaryCodec.FLAG_IRIS;
+    private static final int FLAG_DEFENSIVE = GateBinaryCodec.FLAG_DEFENSIVE;
+    private static final int FLAG_DEFAULT = GateBinaryCodec.FLAG_DEFAULT;
+    private static final int FLAG_ADMIN = GateBinaryCodec.FLAG_ADMIN;
+
+    private final long id;
+    private final String name;
+    private final ResourceKey<Level> dimension;
+    private final UUID creator;
+
+    /** Packed address, or {@link GateAddress#INVALID} when {@link #rawChevrons} holds it. */
+    private final long address;
+
+    /** Only set for addresses that cannot be packed. */
+    private final int[] rawChevrons;
+
+    private final byte flags;
+
+    /** Sorted UUID bit pairs. */
+    private final long[] whitelist;
+
+    /** Sorted UUID bit pairs. Null while {@link #pendingLists} is set. */
+    private volatile long[] blacklist;
+
+    /** Decoder of the blacklist still in a mapped snapshot; null once decoded. */
+    private volatile GateObject.ListDecoder pendingLists;
+
+    private CompactGate(GateObject gate) {
+        this.id = gate.getId();
+        this.name = gate.getName();
+        this.dimension = GateInterner.dimension(gate.getDimension());
+        this.creator = GateInterner.uuid(gate.getCreator());
+
+        this.address = GateAddress.pack(gate.getChevrons());
+        this.rawChevrons = address == GateAddress.INVALID && gate.getChevrons() != null
+                ? gate.getChevrons().clone()
+                : null;
+
+        int bits = 0;
+        if (gate.isPublic()) bits |= FLAG_PUBLIC;
+        if (gate.hasIris()) bits |= FLAG_IRIS;
+        if (gate.isDefensive()) bits |= FLAG_DEFENSIVE;
+        if (gate.isDefaultGate()) bits |= FLAG_DEFAULT;
+        if (gate.getAdmin()) bits |= FLAG_ADMIN;
+        this.flags = (byte) bits;
+
+        GateObject.ListDecoder deferred = gate.deferredLists();
+        if (deferred != null) {
+            List<UUID> decodedWhitelist = new ArrayList<>();
+            deferred.decodeWhitelistInto(decodedWhitelist);
+            this.whitelist = packUuids(decodedWhitelist);
+            this.pendingLists = deferred;
+        } else {
+            this.whitelist = packUuids(gate.getWhitelist());
+            this.blacklist = packUuids(gate.getBlacklist());
+        }
+    }
+
+    /**
+     * Compacts a gate. Later changes to {@code gate} do not affect the result.
+     *
+     * @param gate the gate to compact
+     * @return the compact form
+     */
+    static CompactGate of(GateObject gate) {
+        return new CompactGate(gate);
+    }
+
+    // --- Accessors ---
+
+    long getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ResourceKey<Level> getDimension() {
+        return dimension;
+    }
+
+    UUID getCreator() {
+        return creator;
+    }
+
+    /**
+     * @return the packed address, or {@link GateAddress#INVALID} for malformed legacy addresses
+     */
+    long getAddress() {
+        return address;
+    }
+
+    /**
+     * @return a new chevron array; null only if the gate never had one
+     */
+    int[] getChevrons() {
+        if (address != GateAddress.INVALID) {
+            return GateAddress.unpack(address);
+        }
+        return rawChevrons != null ? rawChevrons.clone() : null;
+    }
+
+    boolean isPublic() {
+        return (flags & FLAG_PUBLIC) != 0;
+    }
+
+    boolean isDefaultGate() {
+        return (flags & FLAG_DEFAULT) != 0;
+    }
+
+    boolean isAdmin() {
+        return (flags & FLAG_ADMIN) != 0;
+    }
+
+    /**
+     * Binary search of the whitelist, without building any {@link UUID} objects.
+     */
+    boolean isWhitelisted(UUID player) {
+        return containsUuid(whitelist, player);
+    }
+
+    /**
+     * @return a new list of the whitelisted players, in UUID order
+     */
+    List<UUID> getWhitelist() {
+        List<UUID> players = new ArrayList<>(whitelist.length / 2);
+        unpackUuids(whitelist, players);
+        return players;
+    }
+
+    /**
+     * Builds a new, independent {@link GateObject} for this gate.
+     *
+     * @return the gate
+     */
+    GateObject toGateObject() {
+        GateObject gate = new GateObject(name, dimension, isPublic(), getChevrons(),
+                (flags & FLAG_IRIS) != 0, (flags & FLAG_DEFENSIVE) != 0,
+                null, null,
+                isDefaultGate(), creator, isAdmin());
+        gate.setId(id);
+        gate.deferLists(new GateObject.ListDecoder() {
+            @Override
+            public void decodeInto(List<UUID> decodedWhitelist, List<UUID> decodedBlacklist) {
+                resolveLists();
+                unpackUuids(whitelist, decodedWhitelist);
+                unpackUuids(blacklist, decodedBlacklist);
+            }
+
+            @Override
+            public void decodeWhitelistInto(List<UUID> decodedWhitelist) {
+                unpackUuids(whitelist, decodedWhitelist);
+            }
+
+            @Override
+            public ByteBuffer encodedLists() {
+                // Lets a snapshot save copy lists that are still mapped instead of decoding them
+                GateObject.ListDecoder pending = pendingLists;
+                return pending != null ? pending.encodedLists() : null;
+            }
+        });
+        return gate;
+    }
+
+    // --- Helpers ---
+
+    private void resolveLists() {
+        if (blacklist != null) {
+            return;
+        }
+        synchronized (this) {
+            if (blacklist == null) {
+                List<UUID> decodedBlacklist = new ArrayList<>();
+                pendingLists.decodeInto(new ArrayList<>(), decodedBlacklist);
+                blacklist = packUuids(decodedBlacklist);
+                pendingLists = null;
+            }
+        }
+    }
+
+    /**
+     * Packs UUIDs into sorted (most, least) pairs, ordered like {@link UUID#compareTo}, without duplicates.
+     */
+    static long[] packUuids(List<UUID> uuids) {
+        if (uuids == null || uuids.isEmpty()) {
+            return NO_UUIDS;
+        }
+
+        UUID[] sorted = uuids.toArray(new UUID[0]);
+        Arrays.sort(sorted);
+
+        long[] packed = new long[sorted.length * 2];
+        int size = 0;
+        for (UUID uuid : sorted) {
+            if (uuid == null || (size > 0 && compare(packed, size - 2, uuid) == 0)) {
+                continue;
+            }
+            packed[size++] = uuid.getMostSignificantBits();
+            packed[size++] = uuid.getLeastSignificantBits();
+        }
+        return size == packed.length ? packed : Arrays.copyOf(packed, size);
+    }
+
+    private static void unpackUuids(long[] packed, List<UUID> into) {
+        for (int i = 0; i < packed.length; i += 2) {
+            into.add(GateInterner.uuid(packed[i], packed[i + 1]));
+        }
+    }
+
+    private static boolean containsUuid(long[] packed, UUID uuid) {
+        int low = 0;
+        int high = packed.length / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compare(packed, middle * 2, uuid);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares the pair at {@code index} with {@code uuid}, in {@link UUID#compareTo} order.
+     */
+    private static int compare(long[] packed, int index, UUID uuid) {
+        int comparison = Long.compare(packed[index], uuid.getMostSignificantBits());
+        return comparison != 0 ? comparison : Long.compare(packed[index + 1], uuid.getLeastSignificantBits());
+    }
+}
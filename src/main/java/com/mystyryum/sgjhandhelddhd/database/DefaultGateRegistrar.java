@@ -0,0 +1,97 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import net.minecraft.Util;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+import net.povstalec.sgjourney.common.data.Universe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Registers a default gate for every loaded dimension that SGJourney gives an address.
+ * <p>
+ * Runs at startup when {@link com.mystyryum.sgjhandhelddhd.Config#REGISTERALLDEFAULTGATES} is
+ * enabled (off by default) and on demand through {@code /gatabase defaults}. Dimensions that already own a default
+ * gate are skipped. Addresses come from {@link DimensionAddressCache}; misses are resolved in
+ * parallel on the background executor (the lookups only read SGJourney's universe data), and
+ * all new gates are added with one
+ * {@link GataBase#addGates} call: one table version, one journal flush and one change event.
+ */
+public final class DefaultGateRegistrar {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultGateRegistrar.class);
+
+    private DefaultGateRegistrar() {}
+
+    /**
+     * Adds the missing default gates.
+     *
+     * @param server the running server
+     * @return the number of default gates added
+     */
+    public static int registerMissing(MinecraftServer server) {
+        Universe universe = Universe.get(server);
+        Set<ResourceKey<Level>> covered = GataBase.getDefaultDimensions();
+
+        // === Resolve every uncovered dimension in parallel ===
+        List<CompletableFuture<GateObject>> pending = new ArrayList<>();
+        for (ResourceKey<Level> dimension : server.levelKeys()) {
+            if (!covered.contains(dimension)) {
+                pending.add(CompletableFuture.supplyAsync(() -> createDefaultGate(universe, dimension), Util.backgroundExecutor()));
+            }
+        }
+
+        List<GateObject> gates = new ArrayList<>();
+        for (CompletableFuture<GateObject> future : pending) {
+            GateObject gate = future.join();
+            if (gate != null) {
+                gates.add(gate);
+            }
+        }
+
+        if (gates.isEmpty()) {
+            LOGGER.info("[DefaultGateRegistrar] Every addressable dimension already has a default gate ({} checked).", pending.size());
+            return 0;
+        }
+
+        // === Register them in one commit ===
+        GataBase.BatchResult result = GataBase.addGates(gates, GataBase.ADMIN_UUID);
+        LOGGER.info("[DefaultGateRegistrar] Registered {} default gates ({} dimensions checked, {} skipped).",
+                result.applied(), pending.size(), result.rejected().size());
+        return result.applied();
+    }
+
+    /**
+     * Builds the default gate of a dimension: named after the dimension's path, public, owned by admin.
+     *
+     * @param universe  SGJourney's universe data
+     * @param dimension the dimension
+     * @return the gate, or null if SGJourney has no address for the dimension
+     */
+    public static GateObject createDefaultGate(Universe universe, ResourceKey<Level> dimension) {
+        DimensionAddressCache.Entry address = DimensionAddressCache.get(universe, dimension);
+        if (address == null) {
+            return null;
+        }
+
+        return new GateObject(
+                dimension.location().getPath(), // Name
+                dimension,                      // Dimension
+                true,                           // Public gate
+                address.getChevrons(),          // Gate address
+                false,                          // Has iris
+                false,                          // Defensive gate
+                new ArrayList<>(),              // Whitelist
+                new ArrayList<>(),              // Blacklist
+                true,                           // Default gate
+                GataBase.ADMIN_UUID,            // Creator UUID (admin)
+                false                           // not an Admin made Gate
+        );
+    }
+}
@@ -0,0 +1,146 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.SGJHandheldDHD;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.OnDatapackSyncEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.povstalec.sgjourney.common.data.Universe;
+import net.povstalec.sgjourney.common.sgjourney.Address;
+import net.povstalec.sgjourney.common.sgjourney.Galaxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of each dimension's SGJourney address.
+ * <p>
+ * Resolving an address walks {@code Universe} → {@code Galaxy.Serializable} →
+ * {@code Address.Immutable} → {@code toArray()}. This class does that walk once per
+ * dimension and keeps the chevrons; dimensions without an address are remembered too. Everything else in the mod asks
+ * this cache instead of touching SGJourney's data structures.
+ * <p>
+ * SGJourney does not announce universe changes, so the cache is cleared whenever the
+ * universe can have changed: when a server starts or stops and after {@code /reload}
+ * (galaxies come from datapacks). A dimension loaded later drops just its own entry.
+ */
+@EventBusSubscriber(modid = SGJHandheldDHD.MOD_ID)
+public final class DimensionAddressCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DimensionAddressCache.class);
+
+    /**
+     * A resolved dimension address.
+     */
+    public static final class Entry {
+        private final int[] chevrons;
+
+        private Entry(int[] chevrons) {
+            this.chevrons = chevrons;
+        }
+
+        /** @return a copy of the chevrons */
+        public int[] getChevrons() {
+            return chevrons.clone();
+        }
+    }
+
+    /** Replaced, not cleared, on invalidation so a lookup still in flight cannot refill it with stale data. */
+    private static volatile ConcurrentHashMap<ResourceKey<Level>, Optional<Entry>> cache = new ConcurrentHashMap<>();
+
+    private DimensionAddressCache() {}
+
+    /**
+     * Returns a dimension's address, resolving it through the given universe on a miss.
+     * Safe to call from worker threads: resolution only reads the universe.
+     *
+     * @param universe  SGJourney's universe data
+     * @param dimension the dimension
+     * @return the address, or null if SGJourney has none for it
+     */
+    public static Entry get(Universe universe, ResourceKey<Level> dimension) {
+        ConcurrentHashMap<ResourceKey<Level>, Optional<Entry>> map = cache;
+        Optional<Entry> cached = map.get(dimension);
+        if (cached == null) {
+            // Resolve outside the map so slow lookups never block other keys
+            cached = Optional.ofNullable(resolve(universe, dimension));
+            Optional<Entry> raced = map.putIfAbsent(dimension, cached);
+            if (raced != null) {
+                cached = raced;
+            }
+        }
+        return cached.orElse(null);
+    }
+
+    /**
+     * Drops every cached address.
+     */
+    public static void invalidate() {
+        cache = new ConcurrentHashMap<>();
+        LOGGER.debug("[DimensionAddressCache] Cleared.");
+    }
+
+    /**
+     * Drops one dimension's cached address.
+     */
+    public static void invalidate(ResourceKey<Level> dimension) {
+        cache.remove(dimension);
+    }
+
+    // === Invalidation hooks ===
+
+    @SubscribeEvent
+    public static void onServerStarted(ServerStartedEvent event) {
+        // SGJourney may have (re)generated its universe during startup
+        invalidate();
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        invalidate();
+    }
+
+    @SubscribeEvent
+    public static void onDatapackSync(OnDatapackSyncEvent event) {
+        // A null player means a /reload for everyone rather than one player joining
+        if (event.getPlayer() == null) {
+            invalidate();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelLoad(LevelEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            invalidate(level.dimension());
+        }
+    }
+
+    // === Helpers ===
+
+    /**
+     * Looks up a dimension's address in the galaxy SGJourney assigned it to.
+     */
+    private static Entry resolve(Universe universe, ResourceKey<Level> dimension) {
+        try {
+            Galaxy.Serializable galaxy = universe.getGalaxyFromDimension(dimension);
+            if (galaxy == null) {
+                return null;
+            }
+
+            ResourceLocation galaxyId = galaxy.getKey().location();
+            Address.Immutable address = universe.getAddressInGalaxyFromDimension(galaxyId, dimension);
+            return address != null ? new Entry(address.toArray()) : null;
+        } catch (RuntimeException e) {
+            LOGGER.warn("[DimensionAddressCache] Could not resolve an address for {}: {}", dimension.location(), e.toString());
+            return null;
+        }
+    }
+}
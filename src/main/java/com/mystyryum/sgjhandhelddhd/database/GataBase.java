@@ -1,21 +1,21 @@
 package com.mystyryum.sgjhandhelddhd.database;
 
-import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
 import com.mystyryum.sgjhandhelddhd.Config;
 import mcp.client.Start;
-import net.minecraft.core.registries.Registries;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 
 import java.io.*;
-import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.level.Level;
 import net.neoforged.bus.api.Event;
@@ -25,8 +25,6 @@ import net.neoforged.neoforge.event.server.ServerStartedEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
 import net.neoforged.neoforge.event.server.ServerStoppingEvent;
 import net.povstalec.sgjourney.common.data.*;
-import net.povstalec.sgjourney.common.sgjourney.Address;
-import net.povstalec.sgjourney.common.sgjourney.Galaxy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,27 +35,55 @@ public class GataBase {
 // =====================
 
     /**
-     * Temporary list used to store GateObjects that are being added but not yet persisted to JSON.
-     * Acts as a staging area before save.
+     * Current immutable snapshot of the gate table. Loaded once in {@link #firstTimeTasks} and
+     * used for every read; the JSON file is only the persistence target.
+     * <p>
+     * Readers take the reference once and never lock. Writers hold {@link #databaseLock},
+     * build the next version from a copy and swap it in.
      */
-    private static List<GateObject> appendingList = new ArrayList<>();
+    private static volatile GateTable gateTable = GateTable.EMPTY;
+
+    /** Shared Gson instance used for all JSON reads and writes. */
+    private static final Gson GSON = new Gson();
 
     /** Constant representing the admin UUID. Used for gates with no specific owner. */
     public static final UUID ADMIN_UUID = new UUID(0L, 0L);
 
-    /** Indicates whether a save operation is currently in progress. */
-    private static boolean isSaving = false;
-
-    /** Flag to indicate a save request occurred while another save was in progress. */
-    private static boolean saveQueued = false;
-
     /** File used as the main persistent database for gates. */
     private static File mainDatabaseFile = new File("plugins/SGHDHD/GataBase.json");
 
+    /** Append-only journal of changes made since the active {@link GateStore} last saved. */
+    private static GataJournal journal = new GataJournal(new File("plugins/SGHDHD/GataBase.journal"), GSON);
+
+    /** Single background writer that owns every journal append and snapshot write. */
+    private static GataWriter writer = new GataWriter(journal, GataBase::saveData);
+
     /** Backup file used in case the main database becomes corrupted. */
     private static File backupDatabaseFile = new File("plugins/SGHDHD/backup.json");
 
-    /** Lock used to ensure thread safety across all database operations. */
+    /** Hands out gate ids. Guarded by {@link #databaseLock}. */
+    private static GateIdAllocator ids = new GateIdAllocator(new File("plugins/SGHDHD/GataBase.ids"));
+
+    /** Loaded gates without an id (data written before gate ids); they get one once the allocator is loaded. */
+    private static final List<GateObject> awaitingIds = new ArrayList<>();
+
+    /** Every available persistence backend; {@link Config#STORAGEBACKEND} picks the active one by name. */
+    private static List<GateStore> stores = createStores(mainDatabaseFile, backupDatabaseFile);
+
+    /** Set when the loaded snapshot is not a complete copy in the active store, so it is rewritten after loading. */
+    private static boolean snapshotStale = false;
+
+    /** Dimensions changed since the last successful save / backup. Guarded by {@link #databaseLock}. */
+    private static final Set<ResourceKey<Level>> unsavedDimensions = new HashSet<>();
+    private static final Set<ResourceKey<Level>> unbackedDimensions = new HashSet<>();
+
+    /** Recent changes per table version, for client delta sync. Recorded under {@link #databaseLock}. */
+    private static final GateChangeLog changeLog = new GateChangeLog();
+
+    /** Mutations per {@link #applyBatch} call when streaming an NDJSON import. */
+    private static final int IMPORT_BATCH_SIZE = 1000;
+
+    /** Serializes writers so each new table version is built from the latest one. Readers never take it. */
     private static final Lock databaseLock = new ReentrantLock();
 
 //    /** Dirty flag indicating whether there are unsaved changes in the database. */
@@ -73,6 +99,10 @@ public class GataBase {
 
         mainDatabaseFile = mainFile;
         backupDatabaseFile = backupFile;
+        journal = new GataJournal(new File(mainFile.getParentFile(), "GataBase.journal"), GSON);
+        writer = new GataWriter(journal, GataBase::saveData);
+        stores = createStores(mainFile, backupFile);
+        ids = new GateIdAllocator(new File(mainFile.getParentFile(), "GataBase.ids"));
 
 
 
@@ -90,45 +120,49 @@ public class GataBase {
      * @return A message indicating success or the type of uniqueness conflict
      */
     public static String addGate(GateObject gate, UUID offendingPlayer) {
-        // Check for duplicate name or address
-        int checkVal = gateUniquenessCheck(gate, null);
-
-        switch (checkVal) {
-            case 1:
-                LOGGER.warn("Attempted to add a gate with duplicate name: {}", gate.getName());
-                return "A Gate with this name already exists!!";
-            case 2:
-                LOGGER.warn("Attempted to add a gate with duplicate address: {}", Arrays.toString(gate.getChevrons()));
-                return "A Gate with this address already exists!!";
-            case 3:
-                LOGGER.warn("Attempted to add a gate with duplicate name and address: {}", gate.getName());
-                return "A Gate with this name and address already exists!!";
-            default:
-                break;
-
-        }
-
-        // If no player provided, assign the gate to ADMIN
-        if (offendingPlayer == null) {
-            offendingPlayer = ADMIN_UUID;
-            LOGGER.info("No player provided for gate '{}'; assigning ADMIN_UUID as creator.", gate.getName());
-        }
-
-        gate.setCreator(offendingPlayer);
+        databaseLock.lock();
+        try {
+            // Check for duplicate name or address
+            int checkVal = gateUniquenessCheck(gate, null);
+
+            switch (checkVal) {
+                case 1:
+                    LOGGER.warn("Attempted to add a gate with duplicate name: {}", gate.getName());
+                    return "A Gate with this name already exists!!";
+                case 2:
+                    LOGGER.warn("Attempted to add a gate with duplicate address: {}", Arrays.toString(gate.getChevrons()));
+                    return "A Gate with this address already exists!!";
+                case 3:
+                    LOGGER.warn("Attempted to add a gate with duplicate name and address: {}", gate.getName());
+                    return "A Gate with this name and address already exists!!";
+                default:
+                    break;
 
-        // Add gate to the in-memory queue for saving
-        appendingList.add(gate);
-        LOGGER.info("Gate '{}' added to appending list for saving.", gate.getName());
+            }
 
-        // Mark database as dirty to trigger save
-        setDirty(true, true, null, null);
+            // If no player provided, assign the gate to ADMIN
+            if (offendingPlayer == null) {
+                offendingPlayer = ADMIN_UUID;
+                LOGGER.info("No player provided for gate '{}'; assigning ADMIN_UUID as creator.", gate.getName());
+            }
 
+            gate.setCreator(offendingPlayer);
+            try {
+                gate.setId(ids.next());
+            } catch (UncheckedIOException e) {
+                LOGGER.error("[GataBase] Could not add gate '{}': {}", gate.getName(), e.getMessage());
+                return "The Gatabase could not save the gate, try again later";
+            }
 
-        //adding default gates to the Registry
-        if (gate.isDefaultGate() && (!gate.getAdmin())) {
-            DefaultGateManager.addDimension(gate.getDimension());
+            // Apply to the in-memory table and journal the change
+            applyMutation(GateMutation.add(gate));
+            LOGGER.info("Gate '{}' added to the gate table.", gate.getName());
+        } finally {
+            databaseLock.unlock();
         }
 
+        // Default gates are tracked by the table's dimension index; nothing else to register
+
 
         //Sending ADD event to the server
         NeoForge.EVENT_BUS.post(new GatabaseChangedEvent(
@@ -144,11 +178,18 @@ public class GataBase {
      * Attempts to remove a gate from the database.
      * Only the creator or an admin (ADMIN_UUID) can delete the gate.
      *
-     * @param target The gate object to remove
+     * @param target The gate object to remove; identified by its id
      * @param offendingPlayer The UUID of the player attempting deletion
      * @return A status message indicating success or failure
      */
     public static String removeGate(GateObject target, UUID offendingPlayer) {
+        // Permissions are checked against the stored gate, not the caller's copy
+        GateObject stored = gateTable.get(target.getId());
+        if (stored == null) {
+            return "Gate no longer exists";
+        }
+        target = stored;
+
         // Check if the player has permission to delete: either they created it or are admin
         boolean canDelete = target.getCreator().equals(offendingPlayer) || target.getCreator().equals(ADMIN_UUID);
 
@@ -156,12 +197,15 @@ public class GataBase {
             // Log the deletion attempt for auditing/debugging purposes
             LOGGER.warn("Player {} deleting gate '{}'", offendingPlayer, target.getName());
 
-            // Mark the database as dirty to trigger a save and remove the gate
-            setDirty(true, false, target, null);
-
-            //removes Default gates from list if removing Default gate any gate created by an admin will be dismissed
-            if (target.isDefaultGate() && (!target.getAdmin())) {
-                DefaultGateManager.removeDimension(target.getDimension());
+            // Remove the gate from memory and journal the change
+            databaseLock.lock();
+            try {
+                if (!gateTable.contains(target.getId())) {
+                    return "Gate no longer exists";
+                }
+                applyMutation(GateMutation.remove(target.getId()));
+            } finally {
+                databaseLock.unlock();
             }
 
 
@@ -188,12 +232,18 @@ public class GataBase {
      * Attempts to edit an existing GateObject in the database.
      * Only the creator or an admin (ADMIN_UUID) can perform edits.
      *
-     * @param target          The gate to be edited
-     * @param updatedTarget   The gate containing the updated data
+     * @param target          The gate to be edited; identified by its id
+     * @param updatedTarget   The gate containing the updated data; takes over the target's id
      * @param offendingPlayer The UUID of the player attempting the edit
      * @return A message indicating the result of the edit operation
      */
     public static String editGate(GateObject target, GateObject updatedTarget, UUID offendingPlayer) {
+        // Permissions are checked against the stored gate, not the caller's copy
+        GateObject stored = gateTable.get(target.getId());
+        if (stored == null) {
+            return "Gate no longer exists";
+        }
+        target = stored;
 
         // Check if the player has permission to edit (creator or admin)
         if (!target.getCreator().equals(offendingPlayer) && !target.getCreator().equals(ADMIN_UUID)) {
@@ -202,52 +252,28 @@ public class GataBase {
 
         LOGGER.info("Player {} is attempting to edit gate '{}'", offendingPlayer, target.getName());
 
-        // Load the current list of gates from the JSON database
-        Gson gson = new Gson();
-        List<GateObject> gates;
-        try (FileReader reader = new FileReader(mainDatabaseFile)) {
-            Type listType = new TypeToken<List<GateObject>>() {}.getType();
-            gates = gson.fromJson(reader, listType);
-        } catch (IOException e) {
-            LOGGER.error("Failed to read database file", e);
-            gates = new ArrayList<>();
-        }
-
-        if (gates == null) {
-            gates = new ArrayList<>();
-        }
-
-        // Remove the target gate to perform a uniqueness check without counting itself
-        Iterator<GateObject> iterator = gates.iterator();
-        while (iterator.hasNext()) {
-            GateObject gate = iterator.next();
-            if (gate.getName().equals(target.getName())) {
-                iterator.remove();
+        // Check if the updated gate conflicts with existing gates, not counting the target itself,
+        // and apply the edit to memory in the same critical section
+        int result;
+        databaseLock.lock();
+        try {
+            if (!gateTable.contains(target.getId())) {
+                return "Gate no longer exists";
+            }
+            result = gateUniquenessCheck(updatedTarget, target);
+            if (result == 0) {
+                applyMutation(GateMutation.update(target.getId(), updatedTarget));
             }
+        } finally {
+            databaseLock.unlock();
         }
 
-        // Check if the updated gate conflicts with existing gates
-        int result = gateUniquenessCheck(updatedTarget, gates);
-
-        // === Update Default Gate Registry (in-memory tracking) ===
-        //
-        // Case 1: A gate was promoted to default (was not default before, now is).
-        // Case 2: A gate was demoted or removed as default (was default before, now isn't).
-        //
-        // Admin-owned gates are excluded from tracking since they are system-level.
-        if (!target.isDefaultGate() && updatedTarget.isDefaultGate() && !updatedTarget.getAdmin()) {
-            // Promote — new default gate detected, register its dimension
-            DefaultGateManager.addDimension(updatedTarget.getDimension());
-
-        } else if (target.isDefaultGate() && !updatedTarget.isDefaultGate() && !updatedTarget.getAdmin()) {
-            // Demote — gate lost default status, unregister its dimension
-            DefaultGateManager.removeDimension(updatedTarget.getDimension());
-        }
+        // Promotions to / demotions from default gate are picked up by the table's dimension index,
+        // which DefaultGateManager reads directly.
 
         switch (result) {
             case 0:
-                // No conflicts: mark database as dirty for saving
-                setDirty(true, false, target, updatedTarget);
+                // No conflicts: the edit was already applied and journaled above
                 LOGGER.info("Gate '{}' successfully edited by player {}", target.getName(), offendingPlayer);
 
                 //sending update event to the server
@@ -270,36 +296,353 @@ public class GataBase {
     }
 
     /**
-     * Creates a backup of the main Gatabase file.
+     * Outcome of {@link #applyBatch}.
+     *
+     * @param applied  number of mutations applied
+     * @param rejected one message per skipped mutation
+     * @param durable  completes once every applied mutation is on disk
+     */
+    public record BatchResult(int applied, List<String> rejected, CompletableFuture<Void> durable) {}
+
+    /**
+     * Adds many gates in one batch. Every gate is assigned to {@code offendingPlayer}, as in {@link #addGate}.
+     *
+     * @param gates           the gates to add
+     * @param offendingPlayer the creator to assign; if null, defaults to ADMIN_UUID
+     * @return the batch outcome
+     */
+    public static BatchResult addGates(Collection<GateObject> gates, UUID offendingPlayer) {
+        UUID creator = offendingPlayer != null ? offendingPlayer : ADMIN_UUID;
+
+        List<GateMutation> mutations = new ArrayList<>(gates.size());
+        for (GateObject gate : gates) {
+            GateMutation mutation = GateMutation.add(gate);
+            mutation.getGate().setCreator(creator);
+            mutations.add(mutation);
+        }
+        return applyBatch(mutations);
+    }
+
+    /**
+     * Applies many mutations as a single table version.
+     * <p>
+     * Each mutation is checked against the store and the mutations before it in the same batch:
+     * ADD and UPDATE must not clash with an existing name or address, UPDATE and REMOVE need an
+     * existing target. Failing mutations are skipped and reported; the rest are applied in order.
+     * Added gates always get a fresh id, whatever id they carried before. If no id can be
+     * reserved, nothing is applied and the whole batch is reported as rejected.
      * <p>
-     * This method safely copies the main database file to the specified backup location.
-     * The operation is thread-safe — it locks the database during the copy to prevent corruption.
+     * The applied mutations are journaled in one flush and announced with one
+     * {@link GatabaseBatchChangedEvent} instead of one event per gate. Permission checks are the
+     * caller's job, as this is meant for admin tools and migrations.
      *
-     * @param mainFile   the source file to back up (e.g., main Gatabase JSON)
-     * @param backupFile the destination backup file (e.g., timestamped backup)
-     * @return 1 if the backup succeeded, 0 if it failed
+     * @param mutations the changes to apply, in order
+     * @return the batch outcome
      */
-    public static int startBackup(File mainFile, File backupFile) {
-        databaseLock.lock(); // Ensure no save/load occurs during backup
+    public static BatchResult applyBatch(List<GateMutation> mutations) {
+        List<GateMutation> applied = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        List<GatabaseChangedEvent> changes = new ArrayList<>();
+        CompletableFuture<Void> durable;
+
+        databaseLock.lock();
         try {
-            // Ensure both files exist or are accessible
-            if (!mainFile.exists()) {
-                LOGGER.warn("Backup failed: main database file not found at {}", mainFile.getAbsolutePath());
-                return 0;
+            GateTable.Builder next = gateTable.toBuilder();
+            for (GateMutation mutation : mutations) {
+                String problem = checkMutation(next, mutation);
+                if (problem != null) {
+                    rejected.add(mutation.getType() + " '" + describe(mutation) + "': " + problem);
+                    continue;
+                }
+
+                GateObject before = mutation.getTargetId() != 0 ? next.get(mutation.getTargetId()) : null;
+                if (mutation.getType() == GatabaseChangedEvent.ChangeType.ADD) {
+                    try {
+                        mutation.getGate().setId(ids.next());
+                    } catch (UncheckedIOException e) {
+                        // Nothing has been published yet, so dropping the builder drops the whole batch
+                        LOGGER.error("[GataBase] Could not apply batch of {} mutations: {}", mutations.size(), e.getMessage());
+                        return new BatchResult(0, List.of("The Gatabase could not save the gates, try again later"),
+                                CompletableFuture.completedFuture(null));
+                    }
+                }
+                markShardsDirty(mutation, next::get);
+                mutation.applyTo(next);
+
+                applied.add(mutation);
+                changes.add(new GatabaseChangedEvent(before, mutation.getGate(), mutation.getType()));
             }
 
-            // Copy file (replacing if necessary)
-            Files.copy(mainFile.toPath(), backupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            LOGGER.info("Database successfully backed up to {}", backupFile.getAbsolutePath());
+            if (applied.isEmpty()) {
+                durable = CompletableFuture.completedFuture(null);
+            } else {
+                publish(next);
+                durable = writer.submitAll(applied);
+            }
+        } finally {
+            databaseLock.unlock();
+        }
+
+        if (!changes.isEmpty()) {
+            NeoForge.EVENT_BUS.post(new GatabaseBatchChangedEvent(changes));
+        }
+
+        LOGGER.info("[GataBase] Batch applied {} of {} mutations", applied.size(), mutations.size());
+        for (String problem : rejected) {
+            LOGGER.warn("[GataBase] Batch skipped {}", problem);
+        }
+        return new BatchResult(applied.size(), rejected, durable);
+    }
+
+    /**
+     * Commits a transaction: every operation is applied, or none is.
+     * <p>
+     * The operations are first played through by id against the current table, checking that
+     * targets exist and that the player may change them. The final state is then built on a
+     * copy of the table, removals first, and every resulting gate is checked for a clashing name
+     * or address. Only if all checks pass are ids reserved for the new gates and the copy
+     * published, journaled as a single entry and announced with one {@link GatabaseBatchChangedEvent};
+     * a refused transaction uses up no ids.
+     *
+     * @param transaction the operations to apply
+     * @return the outcome; lists every problem found if the transaction was refused
+     */
+    public static GateTransaction.Result commit(GateTransaction transaction) {
+        UUID player = transaction.getPlayer();
+        List<String> problems = new ArrayList<>();
+        List<GatabaseChangedEvent> changes = new ArrayList<>();
+        CompletableFuture<Void> durable = null;
+
+        databaseLock.lock();
+        try {
+            GateTable base = gateTable;
+
+            // === Play the operations through by id ===
+            // Final gate per touched id; null means the gate ends up removed
+            Map<Long, GateObject> finalState = new LinkedHashMap<>();
+            Function<Long, GateObject> current = id -> finalState.containsKey(id) ? finalState.get(id) : base.get(id);
+            // New gates only get an id once the whole transaction has passed its checks
+            List<GateObject> added = new ArrayList<>();
+
+            for (GateMutation operation : transaction.getOperations()) {
+                GateObject gate = operation.getGate();
+                GateObject before = null;
+
+                if (operation.getType() != GatabaseChangedEvent.ChangeType.ADD) {
+                    before = current.apply(operation.getTargetId());
+                    if (before == null) {
+                        problems.add("No gate with id " + operation.getTargetId());
+                        continue;
+                    }
+                    if (!canModify(before, player)) {
+                        problems.add("You do not have permission to change '" + before.getName() + "'");
+                        continue;
+                    }
+                    finalState.put(before.getId(), null);
+                }
+
+                if (gate != null) {
+                    if (operation.getType() == GatabaseChangedEvent.ChangeType.ADD) {
+                        gate.setCreator(player);
+                        added.add(gate);
+                    } else {
+                        finalState.put(gate.getId(), gate);
+                    }
+                }
+
+                changes.add(new GatabaseChangedEvent(before, gate, operation.getType()));
+            }
+
+            // === Build and check the final state ===
+            GateTable.Builder next = base.toBuilder();
+            List<GateMutation> entries = new ArrayList<>();
+            List<GateObject> touched = new ArrayList<>();
+            if (problems.isEmpty()) {
+                for (long id : finalState.keySet()) {
+                    GateObject old = next.remove(id);
+                    if (old != null) {
+                        entries.add(GateMutation.remove(id));
+                        touched.add(old);
+                    }
+                }
+                for (GateObject gate : finalState.values()) {
+                    if (gate == null) {
+                        continue;
+                    }
+                    String conflict = conflictMessage(next.conflicts(gate, null));
+                    if (conflict != null) {
+                        problems.add("'" + gate.getName() + "': " + conflict);
+                        continue;
+                    }
+                    next.put(gate);
+                    entries.add(GateMutation.add(gate));
+                    touched.add(gate);
+                }
+
+                // New gates are checked against the table and against each other, on a scratch table with stand-in ids
+                GateTable.Builder newGates = GateTable.EMPTY.toBuilder();
+                for (GateObject gate : added) {
+                    String conflict = conflictMessage(next.conflicts(gate, null) | newGates.conflicts(gate, null));
+                    if (conflict != null) {
+                        problems.add("'" + gate.getName() + "': " + conflict);
+                        continue;
+                    }
+                    gate.setId(newGates.size() + 1L);
+                    newGates.put(gate);
+                }
+            }
+
+            // === Reserve ids for the new gates, only once nothing else can refuse the transaction ===
+            if (problems.isEmpty()) {
+                for (GateObject gate : added) {
+                    try {
+                        gate.setId(ids.next());
+                    } catch (UncheckedIOException e) {
+                        LOGGER.error("[GataBase] Could not add gate '{}' in a transaction: {}", gate.getName(), e.getMessage());
+                        problems.add("The Gatabase could not save '" + gate.getName() + "', try again later");
+                        break;
+                    }
+                    next.put(gate);
+                    entries.add(GateMutation.add(gate));
+                    touched.add(gate);
+                }
+            }
+
+            if (problems.isEmpty()) {
+                for (GateObject gate : touched) {
+                    markShardDirty(gate);
+                }
+                publish(next);
+                durable = writer.submitAll(entries);
+            }
+        } finally {
+            databaseLock.unlock();
+        }
+
+        if (!problems.isEmpty()) {
+            LOGGER.warn("[GataBase] Transaction by {} refused: {}", player, problems);
+            return new GateTransaction.Result(false, problems, CompletableFuture.completedFuture(null));
+        }
+
+        if (!changes.isEmpty()) {
+            NeoForge.EVENT_BUS.post(new GatabaseBatchChangedEvent(changes));
+        }
+        LOGGER.info("[GataBase] Transaction by {} committed {} operations", player, changes.size());
+        return new GateTransaction.Result(true, List.of(), durable);
+    }
+
+    /**
+     * Same rule as {@link #editGate} and {@link #removeGate}: the creator, or anyone for admin gates.
+     * Admin tools acting as {@link #ADMIN_UUID} may change every gate.
+     */
+    private static boolean canModify(GateObject gate, UUID player) {
+        return player.equals(ADMIN_UUID) || gate.getCreator().equals(player) || gate.getCreator().equals(ADMIN_UUID);
+    }
+
+    /**
+     * @param check a result of {@link GateTable#conflicts}
+     * @return a description of the clash, or null if there is none
+     */
+    private static String conflictMessage(int check) {
+        switch (check) {
+            case 1:
+                return "duplicate name";
+            case 2:
+                return "duplicate address";
+            case 3:
+                return "duplicate name and address";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Validates one batch mutation against the working copy that already holds the batch's earlier mutations.
+     *
+     * @return null if the mutation can be applied, otherwise the reason it cannot
+     */
+    private static String checkMutation(GateTable.Builder table, GateMutation mutation) {
+        GateObject target = null;
+        if (mutation.getType() != GatabaseChangedEvent.ChangeType.ADD) {
+            target = table.get(mutation.getTargetId());
+            if (target == null) {
+                return "no such gate";
+            }
+        }
+        if (mutation.getType() == GatabaseChangedEvent.ChangeType.REMOVE) {
+            return null;
+        }
+
+        if (mutation.getGate() == null) {
+            return "no gate data";
+        }
+        return conflictMessage(table.conflicts(mutation.getGate(), target));
+    }
+
+    private static String describe(GateMutation mutation) {
+        return mutation.getGate() != null ? mutation.getGate().getName() : "#" + mutation.getTargetId();
+    }
+
+    /**
+     * Creates a backup of the Gatabase.
+     * <p>
+     * The backup is written from the current in-memory snapshot rather than copied from the
+     * main file, so it already contains changes that are still only in the journal.
+     * No lock is taken: the snapshot is immutable, and writers keep working during the backup.
+     * <p>
+     * Always writes a complete snapshot file, whatever the active store; see {@link #startBackup()}
+     * for the store's own (possibly incremental) backup.
+     *
+     * @param backupFile the destination backup file (e.g., timestamped backup)
+     * @return 1 if the backup succeeded, 0 if it failed
+     */
+    public static int startBackup(File backupFile) {
+        GateTable snapshot = gateTable;
+        try {
+            // Atomically replace the backup with a checksummed copy
+            SnapshotCodec.write(backupFile, snapshot.values());
+            LOGGER.info("Database successfully backed up to {} (version {}, {} gates)",
+                    backupFile.getAbsolutePath(), snapshot.getVersion(), snapshot.size());
             return 1;
 
         } catch (IOException e) {
             LOGGER.error("Backup operation failed: {}", e.toString());
             return 0;
+        }
+    }
 
+    /**
+     * Creates a backup of the Gatabase through the active store.
+     * <p>
+     * The store receives the dimensions changed since its last backup, so incremental
+     * stores only copy those. The lock is held just long enough to take that set together
+     * with the matching snapshot.
+     *
+     * @return 1 if the backup succeeded, 0 if it failed
+     */
+    public static int startBackup() {
+        GateStore store = activeStore();
+        Set<ResourceKey<Level>> changed;
+        GateTable snapshot;
+        databaseLock.lock();
+        try {
+            changed = new HashSet<>(unbackedDimensions);
+            unbackedDimensions.clear();
+            snapshot = gateTable;
         } finally {
-            databaseLock.unlock(); // Always release the lock, even if copy fails
-            LOGGER.debug("Backup operation completed (lock released).");
+            databaseLock.unlock();
+        }
+
+        try {
+            store.backup(snapshot, changed);
+            LOGGER.info("Database successfully backed up by the {} store (version {}, {} gates)",
+                    store.getName(), snapshot.getVersion(), snapshot.size());
+            return 1;
+
+        } catch (IOException | RuntimeException e) {
+            restoreChanged(unbackedDimensions, changed);
+            LOGGER.error("Backup operation failed: {}", e.toString());
+            return 0;
         }
     }
 
@@ -406,6 +749,29 @@ public class GataBase {
         }
     }
 
+    /**
+     * Fired once after {@link #applyBatch} instead of one {@link GatabaseChangedEvent} per gate.
+     * <p>
+     * Handlers that sync clients should treat it as a bulk change, e.g. resend gate lists
+     * once rather than once per entry.
+     */
+    public static class GatabaseBatchChangedEvent extends Event {
+
+        /** Every applied change, in the order it was applied. */
+        private final List<GatabaseChangedEvent> changes;
+
+        public GatabaseBatchChangedEvent(List<GatabaseChangedEvent> changes) {
+            this.changes = List.copyOf(changes);
+        }
+
+        /**
+         * Returns the individual changes of the batch. The list is immutable.
+         */
+        public List<GatabaseChangedEvent> getChanges() {
+            return changes;
+        }
+    }
+
 
 
     /**
@@ -467,11 +833,7 @@ public class GataBase {
         private static void doAutoBackup() {
             LOGGER.info("[AutoBackupTimer] Performing scheduled backup...");
 
-            // Example: reference your database files
-            File main = mainDatabaseFile;
-            File backup = backupDatabaseFile;
-
-            int result = startBackup(main, backup);
+            int result = startBackup();
 
             if (result == 1) {
                 LOGGER.info("[AutoBackupTimer] Backup successful.");
@@ -488,10 +850,7 @@ public class GataBase {
         private static void doFinalSave() {
             LOGGER.info("[AutoBackupTimer] Performing final backup before shutdown...");
 
-            File main = mainDatabaseFile;
-            File backup = backupDatabaseFile;
-
-            int result = startBackup(main, backup);
+            int result = startBackup();
 
             if (result == 1) {
                 LOGGER.info("[AutoBackupTimer] Final backup successful.");
@@ -503,6 +862,130 @@ public class GataBase {
 
 
 
+    /**
+     * Returns a future that completes once every change made before this call is on disk.
+     * <p>
+     * Mutations return as soon as the in-memory table is updated; use this when a caller
+     * really needs durability (e.g. before reporting success to an admin tool).
+     *
+     * @return a future completed by the writer thread
+     */
+    public static CompletableFuture<Void> whenDurable() {
+        return writer.flush();
+    }
+
+    /**
+     * Starts the writer thread and loads the gate table from the stores and the journal.
+     * Called once when the server starts; {@link #shutdown()} is its counterpart.
+     */
+    static void open() {
+        writer.start();
+        loadDatabase(ensureDatabaseIntegrity());
+    }
+
+    /**
+     * Flushes all queued changes, compacts the journal and stops the writer thread.
+     * Called when the server stops.
+     */
+    public static void shutdown() {
+        LOGGER.info("[GataBase] Shutting down writer...");
+        writer.shutdown();
+        activeStore().close();
+    }
+
+    /**
+     * Writes the current gate table as plain, headerless JSON for hand editing or transfer.
+     *
+     * @param target the file to write
+     * @return 1 if the export succeeded, 0 if it failed
+     */
+    public static int exportJson(File target) {
+        GateTable snapshot = gateTable;
+        try {
+            if (target.getAbsoluteFile().getParentFile() != null) {
+                target.getAbsoluteFile().getParentFile().mkdirs();
+            }
+            Files.write(target.toPath(), SnapshotCodec.encodeJson(snapshot.values()));
+            LOGGER.info("[GataBase] Exported {} gates to {}", snapshot.size(), target.getAbsolutePath());
+            return 1;
+        } catch (IOException e) {
+            LOGGER.error("[GataBase] Export to {} failed: {}", target.getAbsolutePath(), e.toString());
+            return 0;
+        }
+    }
+
+    /**
+     * Adds every gate from a JSON file (plain or snapshot-wrapped) to the database.
+     * <p>
+     * Each gate is validated with {@link GateObject#Checker()} and added through {@link #applyBatch};
+     * invalid or conflicting gates are skipped and logged. Accepted gates keep their creator.
+     *
+     * @param source the JSON file to read
+     * @return the number of gates imported, or -1 if the file could not be read
+     */
+    public static int importJson(File source) {
+        // Also accepts binary snapshots, so a backup can be imported directly
+        List<GateMutation> mutations = new ArrayList<>();
+        boolean readable = SnapshotCodec.read(source, false, gate -> {
+            if (gate.Checker()) {
+                mutations.add(GateMutation.add(gate));
+            } else {
+                LOGGER.warn("[GataBase] Import skipped gate '{}'", gate.getName());
+            }
+        });
+        if (!readable) {
+            LOGGER.error("[GataBase] Import skipped: {} is damaged or not a gate list", source.getAbsolutePath());
+            return -1;
+        }
+
+        int imported = applyBatch(mutations).applied();
+        LOGGER.info("[GataBase] Imported {} of {} gates from {}", imported, mutations.size(), source.getAbsolutePath());
+        return imported;
+    }
+
+    /**
+     * Streams a newline-delimited JSON file (one gate object per line, same fields as the JSON
+     * snapshot) into the database through {@link #applyBatch}, {@link #IMPORT_BATCH_SIZE} gates
+     * at a time, so even very large files are never held in memory at once.
+     * <p>
+     * Lines that are not valid gates are skipped and logged, as are gates whose name or
+     * address is already taken. Accepted gates keep their creator.
+     *
+     * @param source the NDJSON file to read
+     * @return the number of gates imported, or -1 if the file could not be read
+     */
+    public static int importNdjson(File source) {
+        List<GateMutation> chunk = new ArrayList<>(IMPORT_BATCH_SIZE);
+        int[] imported = {0};
+
+        GateJsonReader.Result result;
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+            result = GateJsonReader.readLines(reader, gate -> {
+                chunk.add(GateMutation.add(gate));
+                if (chunk.size() >= IMPORT_BATCH_SIZE) {
+                    imported[0] += applyBatch(chunk).applied();
+                    chunk.clear();
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.error("[GataBase] Import of {} stopped: {}", source.getAbsolutePath(), e.toString());
+            imported[0] += applyBatch(chunk).applied();
+            return imported[0] > 0 ? imported[0] : -1;
+        }
+        imported[0] += applyBatch(chunk).applied();
+
+        LOGGER.info("[GataBase] Imported {} of {} gates from {} ({} invalid lines)", imported[0],
+                result.getAccepted(), source.getAbsolutePath(), result.getRejected().size());
+        return imported[0];
+    }
+
+    /**
+     * @return the directory holding the Gatabase files; admin imports are resolved against it
+     */
+    public static File getDataDirectory() {
+        return mainDatabaseFile.getAbsoluteFile().getParentFile();
+    }
+
     public static String noGateExistRemoval(GateObject gate) {
         String prettyName = gate.getDimension().location().getPath();
         LOGGER.error("Gate Provided does not exist DIMENSION: {}, Removing gate from list.", prettyName);
@@ -515,210 +998,301 @@ public class GataBase {
 
 
     /**
-     * Marks the database as dirty (having unsaved changes) and optionally triggers a save.
+     * Applies a mutation to a copy of the gate table, publishes the copy as the next version
+     * and hands the mutation to the writer for journaling.
+     * Callers must hold {@link #databaseLock} so the journal order matches the table versions.
      *
-     * @param dirty          true if there are unsaved changes
-     * @param save           true to trigger an immediate save
-     * @param target         the gate being edited/removed (can be null for additions)
-     * @param updatedTarget  the new gate data for edits (can be null)
+     * @param mutation the change to apply
+     * @return a future that completes once the change is on disk
      */
-    private static void setDirty(boolean dirty, boolean save, GateObject target, GateObject updatedTarget) {
+    private static CompletableFuture<Void> applyMutation(GateMutation mutation) {
+        markShardsDirty(mutation, gateTable::get);
+        GateTable.Builder next = gateTable.toBuilder();
+        mutation.applyTo(next);
+        publish(next);
+        return setDirty(mutation);
+    }
 
+    /**
+     * Marks every dimension a mutation touches: those of the gates it replaces or removes
+     * and that of the gate it stores. Call before applying the mutation.
+     *
+     * @param mutation the change about to be applied
+     * @param current  looks up gates by id in the table the mutation will be applied to
+     */
+    private static void markShardsDirty(GateMutation mutation, LongFunction<GateObject> current) {
+        if (mutation.getTargetId() != 0) {
+            markShardDirty(current.apply(mutation.getTargetId()));
+        }
+        if (mutation.getGate() != null) {
+            markShardDirty(current.apply(mutation.getGate().getId()));
+            markShardDirty(mutation.getGate());
+        }
+    }
 
-        if (dirty) {
-            LOGGER.info("[GataBase] Database marked as dirty. Save triggered: {}", save);
-            onDirty(save, target, updatedTarget); // Start the save process if necessary
+    private static void markShardDirty(GateObject gate) {
+        if (gate != null) {
+            unsavedDimensions.add(gate.getDimension());
+            unbackedDimensions.add(gate.getDimension());
         }
     }
 
     /**
-     * Triggered when the database is marked as dirty (has unsaved changes).
-     * Starts the save process if no save is currently in progress.
-     * If a save is already running, queues another save to run afterward.
-     *
-     * @param save          true if this change is a new addition to be saved
-     * @param target        the original GateObject being modified (for edits/removals)
-     * @param updatedTarget the updated GateObject (for edits)
+     * Puts dimensions taken for a failed save or backup back into their set, so the next attempt covers them.
      */
-    private static synchronized void onDirty(boolean save, GateObject target, GateObject updatedTarget) {
-        if (isSaving) {
-            // A save is already in progress, queue this change for the next save
-            LOGGER.info("Save queue started. Another save will run after current save completes.");
-            saveQueued = true;
-            return;
+    private static void restoreChanged(Set<ResourceKey<Level>> pending, Set<ResourceKey<Level>> changed) {
+        databaseLock.lock();
+        try {
+            pending.addAll(changed);
+        } finally {
+            databaseLock.unlock();
         }
+    }
 
-        // No save in progress, proceed immediately
-        LOGGER.info("Database marked dirty. Initiating save process...");
-        saveData(save, target, updatedTarget);
+    /**
+     * Creates one instance of every store, all kept next to the main database file.
+     */
+    private static List<GateStore> createStores(File mainFile, File backupFile) {
+        File dir = mainFile.getAbsoluteFile().getParentFile();
+        return List.of(
+                new SnapshotGateStore(mainFile, backupFile),
+                new ShardStore(new File(dir, "shards"), new File(dir, "backup-shards")),
+                new MVStoreGateStore(new File(dir, "GataBase.mv.db"), backupFile));
     }
 
+    /**
+     * @return the store named by {@link Config#STORAGEBACKEND}
+     */
+    private static GateStore activeStore() {
+        String name = Config.STORAGEBACKEND.get();
+        for (GateStore store : stores) {
+            if (store.getName().equals(name)) {
+                return store;
+            }
+        }
+        return stores.get(0);
+    }
 
     /**
-     * Saves the current Gatabase state to disk.
+     * Freezes a working copy and makes it the table every reader sees from now on.
+     * Callers must hold {@link #databaseLock}.
      *
-     * @param save          true if adding new gates, false if editing/removing
-     * @param target        the original gate (used for edit/remove operations)
-     * @param updatedTarget the updated gate (used for edit/replace operations)
+     * @param next the working copy built from the current table
      */
-    private static void saveData(boolean save, GateObject target, GateObject updatedTarget) {
-        isSaving = true;
+    private static void publish(GateTable.Builder next) {
+        GateTable previous = gateTable;
+        GateTable published = next.build(previous.getVersion() + 1);
+        changeLog.record(previous, published, next.getTouchedIds(), Config.SYNCCHANGELOGSIZE.get());
+        gateTable = published;
+    }
 
-        // Acquire lock to prevent concurrent access to database file
+    /**
+     * Marks the database as dirty (having unsaved changes) by queuing the change for the writer thread.
+     * Never blocks on disk I/O; the writer coalesces bursts into a single journal flush.
+     *
+     * @param mutation the change that was just applied to {@link #gateTable}
+     * @return a future that completes once the change is on disk
+     */
+    private static CompletableFuture<Void> setDirty(GateMutation mutation) {
+        LOGGER.debug("[GataBase] Database marked as dirty: {} '{}'", mutation.getType(),
+                mutation.getGate() != null ? mutation.getGate().getName() : "#" + mutation.getTargetId());
+        return writer.submit(mutation);
+    }
+
+    /**
+     * Asks the writer thread to fold the journal into a new snapshot once it is idle.
+     */
+    private static void onDirty() {
+        writer.requestCompaction();
+    }
+
+
+    /**
+     * Writes a new base snapshot of the in-memory gate table.
+     * <p>
+     * Called on the writer thread during compaction. The published table is immutable,
+     * so the write does not block mutations. The active store receives the dimensions changed
+     * since the last save; the lock is held just long enough to take that set together with
+     * the matching snapshot.
+     *
+     * @throws IOException if the snapshot could not be written
+     */
+    private static void saveData() throws IOException {
+        Set<ResourceKey<Level>> changed;
+        GateTable snapshot;
         databaseLock.lock();
         try {
-            do {
-                // Take a snapshot of pending gates to save.
-                // This avoids concurrent modification of appendingList during the save.
-                List<GateObject> procList = new ArrayList<>(appendingList);
-
-                // Reset save queue flag
-                saveQueued = false;
-
-                LOGGER.info("Saving Gatabase...");
-
-                Gson gson = new Gson();
-                List<GateObject> gates;
-
-                // === Read current database from JSON file ===
-                try (FileReader reader = new FileReader(mainDatabaseFile)) {
-                    Type listType = new TypeToken<List<GateObject>>() {}.getType();
-                    gates = gson.fromJson(reader, listType);
-                } catch (IOException e) {
-                    LOGGER.error("Failed to read Gatabase file, starting with empty list", e);
-                    gates = new ArrayList<>();
-                }
+            changed = new HashSet<>(unsavedDimensions);
+            unsavedDimensions.clear();
+            snapshot = gateTable;
+        } finally {
+            databaseLock.unlock();
+        }
 
-                // Ensure we have a non-null list
-                if (gates == null) {
-                    gates = new ArrayList<>();
-                }
+        try {
+            activeStore().save(snapshot, changed);
+        } catch (IOException | RuntimeException e) {
+            restoreChanged(unsavedDimensions, changed);
+            throw e;
+        }
+    }
 
-                // === Perform save operation ===
-                if (save) {
-                    // Add all new gates from the pending list
-                    gates.addAll(procList);
-                } else {
-                    // Remove the target gate (for edit/remove)
-                    if (target != null) {
-                        gates.removeIf(g -> g.getName().equals(target.getName()));
-                    }
+    /**
+     * Replays the journal on top of the verified base snapshot and fills the in-memory gate table.
+     * <p>
+     * Journaled gates are decoded by Gson, so their dimension keys and UUIDs are swapped for
+     * the shared instances ({@link GateInterner}); reflective keys would break equality.
+     * <p>
+     * Data written before gates had ids is upgraded here: id-less gates get fresh ids and
+     * journal entries that name their target are resolved to the target's id. The upgraded
+     * data is then written back by the usual compaction.
+     *
+     * @param base the working copy filled by {@link #ensureDatabaseIntegrity()}
+     */
+    private static void loadDatabase(GateTable.Builder base) {
+        List<GateMutation> replay = journal.readAll();
+
+        // Normalize keys before indexing, since the dimension index relies on key equality
+        long highestId = base.getHighestId();
+        for (GateMutation mutation : replay) {
+            if (mutation.getGate() != null) {
+                GateInterner.intern(mutation.getGate());
+                highestId = Math.max(highestId, mutation.getGate().getId());
+            }
+        }
+
+        GateTable loaded;
+        databaseLock.lock();
+        try {
+            // === Give id-less legacy gates an id ===
+            ids.load(highestId);
+            for (GateObject gate : awaitingIds) {
+                gate.setId(ids.next());
+                markShardDirty(gate);
+                base.put(gate);
+            }
+            if (!awaitingIds.isEmpty()) {
+                LOGGER.info("[GataBase] Assigned ids to {} gates saved before gate ids existed.", awaitingIds.size());
+                snapshotStale = true;
+                awaitingIds.clear();
+            }
 
-                    // Add updated gate (only for edit operation)
-                    if (updatedTarget != null) {
-                        gates.add(updatedTarget);
+            // Replay changes made since the snapshot was written
+            for (int i = 0; i < replay.size(); i++) {
+                GateMutation mutation = replay.get(i);
+                if (mutation.getLegacyTarget() != null) {
+                    GateObject target = base.get(mutation.getLegacyTarget());
+                    if (target == null) {
+                        // Same as before ids: replacing or removing a missing gate removes nothing
+                        if (mutation.getGate() == null) {
+                            continue;
+                        }
+                        mutation = GateMutation.add(mutation.getGate());
+                    } else {
+                        mutation = mutation.withTargetId(target.getId());
                     }
+                    replay.set(i, mutation);
                 }
-
-                // === Write updated list back to disk ===
-                try (FileWriter writer = new FileWriter(mainDatabaseFile)) {
-                    gson.toJson(gates, writer);
-                } catch (IOException e) {
-                    LOGGER.error("Failed to write Gatabase file", e);
+                if (mutation.getGate() != null && mutation.getGate().getId() <= 0) {
+                    mutation.getGate().setId(ids.next());
                 }
+                markShardsDirty(mutation, base::get);
+                mutation.applyTo(base);
+            }
 
-                // Remove processed gates from appending list
-                appendingList.removeAll(procList);
-
-            } while (saveQueued); // Repeat if a new save was queued during this save
-
+            publish(base);
+            loaded = gateTable;
+            // Clients synced against an earlier load must start over
+            changeLog.reset(loaded.getVersion());
         } finally {
-            // Always release resources and reset flags
-            LOGGER.info("Save Complete");
-            isSaving = false;
             databaseLock.unlock();
         }
+
+        LOGGER.info("[GataBase] Loaded {} gates into memory ({} journal entries replayed).", loaded.size(), replay.size());
+
+        // Fold replayed entries (or a snapshot in the other layout) into a fresh snapshot in the background
+        if (!replay.isEmpty() || snapshotStale) {
+            onDirty();
+        }
     }
 
 
 
     /**
-     * Ensures that the main and backup database files exist.
-     * Creates missing files and parent directories if necessary.
-     * Logs creation and errors using the LOGGER.
+     * Loads the verified base snapshot from the store that saved most recently.
+     * <p>
+     * Normally that is the active store ({@link Config#STORAGEBACKEND}). If another store holds
+     * newer data (the backend was just switched), the gates are loaded from there and the first
+     * compaction writes them to the active store. Each store repairs damaged data from its own
+     * backup; if that fails too, the journal is the only source of data.
+     * <p>
+     * Gates are streamed from the store straight into a new working copy of the table,
+     * without building an intermediate list.
+     *
+     * @return a working copy holding the verified base snapshot; never null
      */
-    private static void ensureDatabaseIntegrity() {
-        // Ensure main database file exists
-        if (!mainDatabaseFile.exists()) {
-            try {
-                // Create parent directories if needed
-                if (mainDatabaseFile.getParentFile() != null) {
-                    mainDatabaseFile.getParentFile().mkdirs();
-                }
-
-                // Create the main file
-                mainDatabaseFile.createNewFile();
-                LOGGER.info("[GataBase] Created new main database file: {}", mainDatabaseFile.getAbsolutePath());
-            } catch (IOException e) {
-                LOGGER.error("[GataBase] Failed to create main database file: {}", mainDatabaseFile.getAbsolutePath(), e);
+    private static GateTable.Builder ensureDatabaseIntegrity() {
+        GateStore active = activeStore();
+        GateStore source = active;
+        for (GateStore store : stores) {
+            if (store.lastSaved() > source.lastSaved()) {
+                source = store;
             }
         }
 
-        // Ensure backup database file exists
-        if (!backupDatabaseFile.exists()) {
-            try {
-                // Create parent directories if needed
-                if (backupDatabaseFile.getParentFile() != null) {
-                    backupDatabaseFile.getParentFile().mkdirs();
-                }
+        GateTable.Builder base = GateTable.EMPTY.toBuilder();
+        awaitingIds.clear();
+        boolean intact = source.load(loadInto(base));
+        snapshotStale = source != active || !intact;
 
-                // Create the backup file
-                backupDatabaseFile.createNewFile();
-                LOGGER.info("[GataBase] Created new backup database file: {}", backupDatabaseFile.getAbsolutePath());
-            } catch (IOException e) {
-                LOGGER.error("[GataBase] Failed to create backup database file: {}", backupDatabaseFile.getAbsolutePath(), e);
-            }
+        if (source != active) {
+            LOGGER.info("[GataBase] Loaded {} gates from the {} store; they move to the {} store on the next save",
+                    base.size(), source.getName(), active.getName());
+        } else if (!intact) {
+            LOGGER.warn("[GataBase] The {} store was damaged; loaded {} gates and rewriting it", active.getName(), base.size());
         }
+        return base;
+    }
+
+    /**
+     * @return a sink that indexes each loaded gate in {@code base}, or sets it aside in
+     *         {@link #awaitingIds} if it has no id yet. The decoders already hand out shared
+     *         dimension keys and UUIDs ({@link GateInterner}).
+     */
+    private static Consumer<GateObject> loadInto(GateTable.Builder base) {
+        return gate -> {
+            if (gate.getId() > 0) {
+                base.put(gate);
+            } else {
+                awaitingIds.add(gate);
+            }
+        };
     }
 
 
+
     /**
      * Checks whether a newGate conflicts with existing gates in name or address.
+     * <p>
+     * Reads the current snapshot; callers that act on the result must hold {@link #databaseLock}
+     * so no other writer publishes a new version in between.
      *
      * @param newGate The gate to check for uniqueness.
-     * @param ingates Optional list of gates to check against. If null, the database file is read.
+     * @param ignored Optional gate to leave out of the check (the gate being edited). May be null.
      * @return conflictCount Returns 1 if name conflict, 2 if address conflict, 3 if both.
      */
-    private static int gateUniquenessCheck(GateObject newGate, List<GateObject> ingates) {
-        databaseLock.lock(); // Ensure thread safety for database access
-        try {
-            List<GateObject> gates;
-            int conflictCount = 0;
-
-            // Load gates from database if no list is provided
-            if (ingates == null) {
-                Gson gson = new Gson();
-                try (FileReader reader = new FileReader(mainDatabaseFile)) {
-                    Type listType = new TypeToken<List<GateObject>>() {}.getType();
-                    gates = gson.fromJson(reader, listType);
-                } catch (IOException e) {
-                    LOGGER.error("[GataBase] Failed to read main database file during uniqueness check", e);
-                    gates = new ArrayList<>();
-                }
+    private static int gateUniquenessCheck(GateObject newGate, GateObject ignored) {
+        // Constant-time lookups in the table's name and address indexes
+        int conflictCount = gateTable.conflicts(newGate, ignored);
 
-                if (gates == null) {
-                    gates = new ArrayList<>();
-                }
-            } else {
-                gates = ingates;
-            }
-
-            // Check for conflicts
-            for (GateObject gate : gates) {
-                if (gate.getName().equalsIgnoreCase(newGate.getName())) {
-                    LOGGER.warn("A Gate with this name already exists: {}", newGate.getName());
-                    conflictCount++;
-                }
-                if (Arrays.equals(gate.getChevrons(), newGate.getChevrons())) {
-                    LOGGER.warn("A Gate with this address already exists: {}", Arrays.toString(newGate.getChevrons()));
-                    conflictCount += 2; // Using 2 to indicate address conflict
-                }
-            }
-
-            return conflictCount; // 1=name conflict, 2=address conflict, 3=both
-        } finally {
-            databaseLock.unlock();
+        if ((conflictCount & 1) != 0) {
+            LOGGER.warn("A Gate with this name already exists: {}", newGate.getName());
+        }
+        if ((conflictCount & 2) != 0) {
+            LOGGER.warn("A Gate with this address already exists: {}", Arrays.toString(newGate.getChevrons()));
         }
+
+        return conflictCount; // 1=name conflict, 2=address conflict, 3=both
     }
 
     /**
@@ -728,51 +1302,20 @@ public class GataBase {
      * @param server The MinecraftServer instance used to retrieve universe info
      */
     private static void addInitialSpawnGate(MinecraftServer server) {
-        int[] spawnAddress;
         // Get the default spawn dimension string from config
         String defaultDim = Config.DEFAULTSPAWNDIMENSION.get();
 
         // Convert the dimension string into a ResourceKey for the level
-        ResourceKey<Level> spawnDim = ResourceKey.create(Registries.DIMENSION, ResourceLocation.parse(defaultDim));
-        String prettyName = spawnDim.location().getPath();
+        ResourceKey<Level> spawnDim = GateInterner.dimension(defaultDim);
 
-        // Retrieve universe information from SGJourney
-        Universe universeInfo = Universe.get(server);
+        // Resolve the spawn dimension's address through SGJourney and build its default gate
         LOGGER.info("Grabbing SGJourney level info for spawn dimension '{}'", defaultDim);
-
-        // Get galaxy info associated with this dimension
-        Galaxy.Serializable galaxySerializable = universeInfo.getGalaxyFromDimension(spawnDim);
-        ResourceKey<Galaxy> galaxyKey = galaxySerializable.getKey();
-        ResourceLocation galaxyId = galaxyKey.location();
-        LOGGER.info("Obtained spawn galaxy ID: {}", galaxyId);
-
-        Address.Immutable item = universeInfo.getAddressInGalaxyFromDimension(galaxyId, spawnDim);
-        // Get the address of the spawn dimension within its galaxy
-
-        try {
-            spawnAddress = item.toArray();
-            LOGGER.info("Obtained address for spawn dimension: {}", Arrays.toString(spawnAddress));
-        } catch (NullPointerException e){
-            LOGGER.error("Dimension provided in Config has no Galaxy. ERROR REPORT: '{}'", e.getMessage());
-
-            spawnAddress = null;
+        GateObject spawnGate = DefaultGateRegistrar.createDefaultGate(Universe.get(server), spawnDim);
+        if (spawnGate == null) {
+            LOGGER.error("Dimension provided in Config has no Galaxy or address: '{}'", defaultDim);
             return;
         }
-
-        // Construct the GateObject representing the spawn gate
-        GateObject spawnGate = new GateObject(
-                prettyName,        // Name
-                spawnDim,          // Dimension display name
-                true,              // Public gate
-                spawnAddress,      // Gate address
-                false,             // Has iris
-                false,             // Defensive gate
-                new ArrayList<>(), // Whitelist
-                new ArrayList<>(), // Blacklist
-                true,              // Default gate
-                ADMIN_UUID,        // Creator UUID (admin)
-                false              // not an Admin made Gate
-        );
+        LOGGER.info("Obtained address for spawn dimension: {}", Arrays.toString(spawnGate.getChevrons()));
 
         // Add the gate to the database
         addGate(spawnGate, null);
@@ -789,25 +1332,94 @@ public class GataBase {
      * @return list of GateObjects owned by the player, or all if admin; never null
      */
     public static List<GateObject> getFilteredGates(UUID offendingPlayer) {
-        List<GateObject> gates = new ArrayList<>();
+        // Admins get a copy of the whole table; players only their own gates via the creator index
+        GateTable snapshot = gateTable;
+        if (offendingPlayer.equals(ADMIN_UUID)) {
+            return snapshot.values();
+        }
+        return snapshot.getByCreator(offendingPlayer);
+    }
 
-        // Read all gates from the database
-        Gson gson = new Gson();
-        try (FileReader reader = new FileReader(mainDatabaseFile)) {
-            Type listType = new TypeToken<List<GateObject>>() {}.getType();
-            gates = gson.fromJson(reader, listType);
-        } catch (IOException e) {
-            LOGGER.error("Failed to read database file", e);
+    /**
+     * Works out what a player's client needs to catch up with the database.
+     * <p>
+     * If the client's version is still covered by the change log, only the gates that were
+     * added, changed or removed since then (as far as the player can see them, see
+     * {@link #canSee}) are returned; otherwise, or for a client without a list yet, every
+     * gate the player can see, taken from the table's creator, whitelist and public indexes.
+     *
+     * @param player  the player to sync
+     * @param epoch   the epoch of the client's list, 0 if it has none
+     * @param version the version of the client's list
+     * @return the delta to send; never null
+     */
+    public static GateDelta syncSince(UUID player, long epoch, long version) {
+        GateDelta delta = changeLog.since(epoch, version, gate -> canSee(gate, player));
+        if (delta != null) {
+            return delta;
         }
 
-        if (gates == null) gates = new ArrayList<>();
+        // Read the epoch first: a reload in between then yields a stale epoch, never a stale list
+        long currentEpoch = changeLog.getEpoch();
+        GateTable snapshot = gateTable;
+        List<GateObject> gates = player.equals(ADMIN_UUID) ? snapshot.values() : snapshot.getVisibleTo(player);
+        return GateDelta.full(currentEpoch, snapshot.getVersion(), gates);
+    }
+
+    /**
+     * Whether a gate belongs in a player's client gate list: public gates, the player's own
+     * gates and gates whitelisting the player. Admins see every gate.
+     *
+     * @param gate   the gate
+     * @param player the player
+     * @return true if the player may see the gate
+     */
+    public static boolean canSee(GateObject gate, UUID player) {
+        return player.equals(ADMIN_UUID) || gate.isPublic() || player.equals(gate.getCreator())
+                || (gate.getWhitelist() != null && gate.getWhitelist().contains(player));
+    }
 
-        // If not admin, filter gates to only those created by the player
-        if (!offendingPlayer.equals(ADMIN_UUID)) {
-            gates.removeIf(gate -> !gate.getCreator().equals(offendingPlayer));
+    /**
+     * {@link #canSee(GateObject, UUID)} for a stored gate, without unpacking it.
+     */
+    private static boolean canSee(CompactGate gate, UUID player) {
+        return player.equals(ADMIN_UUID) || gate.isPublic() || player.equals(gate.getCreator()) || gate.isWhitelisted(player);
+    }
+
+    /**
+     * Returns the current immutable gate table. The returned snapshot never changes,
+     * so callers can run several lookups against one consistent version without locking.
+     *
+     * @return the published snapshot
+     */
+    public static GateTable getSnapshot() {
+        return gateTable;
+    }
+
+    /**
+     * @param id a gate id
+     * @return a copy of the gate with that id, or null if there is none
+     */
+    public static GateObject getGate(long id) {
+        return gateTable.get(id);
+    }
+
+    /**
+     * Looks up the gate dialled by a chevron address.
+     * <p>
+     * The address is packed into a single long and resolved through the table's primitive
+     * address index, so dial validation neither scans the table nor allocates a key.
+     *
+     * @param chevrons the dialled address
+     * @return the matching gate, or null if no gate has that address
+     */
+    public static GateObject findGateByAddress(int[] chevrons) {
+        long address = GateAddress.pack(chevrons);
+        if (address == GateAddress.INVALID) {
+            return null;
         }
 
-        return gates;
+        return gateTable.getByAddress(address);
     }
 
     /**
@@ -818,6 +1430,9 @@ public class GataBase {
         // Retrieve the Minecraft server instance from the startup event
         MinecraftServer server = event.getServer();
 
+        //checking if files are correct, then loading the gate table into memory once
+        open();
+
         // Load all gates associated with the admin UUID (system-owned gates)
         List<GateObject> adminGates = getFilteredGates(ADMIN_UUID);
 
@@ -836,65 +1451,61 @@ public class GataBase {
             LOGGER.info("[FirstTimeTasks] Initial spawn gate successfully created.");
         }
 
-
-        //checking if files are correct
-        ensureDatabaseIntegrity();
+        // Give every other addressable dimension its default gate in one batch
+        if (Config.REGISTERALLDEFAULTGATES.get()) {
+            DefaultGateRegistrar.registerMissing(server);
+        }
     }
 
     /**
      * Retrieves a list of dimensions that currently have a default gate.
      *
-     * <p>This function safely reads the database file and checks each gate entry.
-     * If a gate is marked as a default gate and its dimension matches its name path,
+     * <p>This function reads the table's dimension index and checks the gates of each
+     * dimension that owns a default gate. If a gate is marked as a default gate and its dimension matches its name path,
      * that dimension name is added to the result list.</p>
      *
      * @return a list of dimension IDs (ResourceKey<Level>) that have a default gate registered
      */
     public static List<ResourceKey<Level>> getDimensionList() {
         List<ResourceKey<Level>> dimensions = new ArrayList<>();
-        databaseLock.lock(); // Prevent concurrent read/write access
-
-        try {
-            Gson gson = new Gson();
-            List<GateObject> gates;
-
-            // === Load all gates from JSON database ===
-            try (FileReader reader = new FileReader(mainDatabaseFile)) {
-                Type listType = new TypeToken<List<GateObject>>() {}.getType();
-                gates = gson.fromJson(reader, listType);
-            } catch (IOException e) {
-                LOGGER.error("[GataBase] Failed to read main database file while gathering dimension list", e);
-                gates = new ArrayList<>();
-            }
-
-            // Handle empty or null database gracefully
-            if (gates == null || gates.isEmpty()) {
-                return dimensions; // Return empty list instead of null
-            }
-
-            // === Filter for default gates and collect their dimension names ===
-            for (GateObject gate : gates) {
-                try {
-                    ResourceKey<Level> dimKey = gate.getDimension();
-
-
-                    // Only include dimensions with a properly flagged default gate
-                    if (gate.isDefaultGate() && (!gate.getAdmin()) &&
-                            dimKey.location().getPath().equalsIgnoreCase(gate.getName())) {
-                        dimensions.add(gate.getDimension());
-                    }
-                } catch (Exception parseError) {
-                    LOGGER.warn("Skipping invalid gate dimension entry: {}", gate.getDimension());
+        GateTable snapshot = gateTable; // One consistent version for the whole scan
+
+        // Only dimensions that own a default gate can qualify; check just their gates
+        for (ResourceKey<Level> dimKey : snapshot.getDefaultDimensions()) {
+            for (GateObject gate : snapshot.getByDimension(dimKey)) {
+                // Only include dimensions with a properly flagged default gate
+                if (gate.isDefaultGate() && (!gate.getAdmin()) &&
+                        dimKey.location().getPath().equalsIgnoreCase(gate.getName())) {
+                    dimensions.add(dimKey);
+                    break;
                 }
             }
-
-        } finally {
-            databaseLock.unlock();
         }
 
         return dimensions;
     }
 
+    /**
+     * Returns the dimensions that currently own a default gate.
+     * <p>
+     * Lock-free: the set belongs to the current immutable table snapshot.
+     *
+     * @return an immutable set of dimension keys
+     */
+    public static Set<ResourceKey<Level>> getDefaultDimensions() {
+        return gateTable.getDefaultDimensions();
+    }
+
+    /**
+     * Returns every gate placed in a dimension, straight from the table's dimension index.
+     *
+     * @param dimension the dimension key
+     * @return a new list of gates; empty if the dimension has none
+     */
+    public static List<GateObject> getGatesInDimension(ResourceKey<Level> dimension) {
+        return gateTable.getByDimension(dimension);
+    }
+
 
 
 }
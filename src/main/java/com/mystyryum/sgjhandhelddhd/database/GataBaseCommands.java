@@ -0,0 +1,87 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Admin commands for the Gatabase.
+ * <pre>
+ *   /gatabase import &lt;file&gt;
+ *   /gatabase defaults
+ *   /gatabase refresh
+ * </pre>
+ * {@code file} is resolved inside the Gatabase directory ({@code plugins/SGHDHD}).
+ * Files ending in {@code .json} are read as a JSON gate list or snapshot
+ * ({@link GataBase#importJson}); anything else is streamed as newline-delimited JSON,
+ * one gate per line ({@link GataBase#importNdjson}). {@code defaults} registers a default gate
+ * for every addressable dimension that lacks one ({@link DefaultGateRegistrar}). {@code refresh}
+ * drops the cached dimension addresses ({@link DimensionAddressCache}) after SGJourney's universe
+ * was changed without a reload.
+ * Requires permission level 4.
+ */
+public final class GataBaseCommands {
+
+    private GataBaseCommands() {}
+
+    /**
+     * Registers the commands. Called from the server's command registration event.
+     *
+     * @param dispatcher the server command dispatcher
+     */
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("gatabase")
+                .requires(source -> source.hasPermission(4))
+                .then(Commands.literal("import")
+                        .then(Commands.argument("file", StringArgumentType.greedyString())
+                                .executes(context -> importFile(context.getSource(),
+                                        StringArgumentType.getString(context, "file")))))
+                .then(Commands.literal("defaults")
+                        .executes(context -> registerDefaults(context.getSource())))
+                .then(Commands.literal("refresh")
+                        .executes(context -> refreshAddresses(context.getSource()))));
+    }
+
+    private static int registerDefaults(CommandSourceStack source) {
+        int added = DefaultGateRegistrar.registerMissing(source.getServer());
+        source.sendSuccess(() -> Component.literal("Registered " + added + " default gates"), true);
+        return added;
+    }
+
+    private static int refreshAddresses(CommandSourceStack source) {
+        DimensionAddressCache.invalidate();
+        source.sendSuccess(() -> Component.literal("Cleared the cached dimension addresses"), true);
+        return 1;
+    }
+
+    private static int importFile(CommandSourceStack source, String name) {
+        // Keep imports inside the Gatabase directory
+        Path directory = GataBase.getDataDirectory().toPath().normalize();
+        Path path = directory.resolve(name).normalize();
+        if (!path.startsWith(directory)) {
+            source.sendFailure(Component.literal("Import files must be inside " + directory));
+            return 0;
+        }
+
+        File file = path.toFile();
+        if (!file.isFile()) {
+            source.sendFailure(Component.literal("No such file: " + file.getName()));
+            return 0;
+        }
+
+        int imported = name.endsWith(".json") ? GataBase.importJson(file) : GataBase.importNdjson(file);
+        if (imported < 0) {
+            source.sendFailure(Component.literal("Could not read " + file.getName() + "; see the server log"));
+            return 0;
+        }
+
+        source.sendSuccess(() -> Component.literal("Imported " + imported + " gates from " + file.getName()
+                + " (skipped entries are listed in the server log)"), true);
+        return imported;
+    }
+}
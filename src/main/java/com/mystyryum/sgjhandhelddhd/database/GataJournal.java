@@ -0,0 +1,262 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of {@link GateMutation}s for the Gatabase.
+ * <p>
+ * Every add/edit/remove costs one short sequential append instead of a full
+ * rewrite of {@code GataBase.json}. Compaction folds the journal into a new
+ * base snapshot:
+ * <ol>
+ *   <li>{@link #rotate()} moves the live journal aside to {@code .old}</li>
+ *   <li>the caller writes the snapshot</li>
+ *   <li>{@link #discardRotated()} deletes {@code .old}</li>
+ * </ol>
+ * If the server dies between steps, {@link #readAll()} still returns the old
+ * entries, and replaying them on top of either snapshot is harmless.
+ * <p>
+ * Line format: {@code <crc32 hex> <mutation json>}, or {@code <crc32 hex> [<mutation json>, ...]}
+ * for a group written by {@link #appendAll}. Lines with a bad checksum (e.g. a torn last write)
+ * are skipped on replay, so a group is replayed completely or not at all.
+ */
+public class GataJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GataJournal.class);
+
+    private final Gson gson;
+
+    /** Journal receiving new entries. */
+    private final File journalFile;
+
+    /** Journal moved aside by a compaction that has not finished yet. */
+    private final File rotatedFile;
+
+    /** Open append stream; lazily created. */
+    private FileOutputStream out;
+
+    /** Entries currently in the journal, including a pending rotated file. */
+    private int entryCount;
+
+    /** Entries that were moved aside by the last {@link #rotate()}. */
+    private int rotatedCount;
+
+    public GataJournal(File journalFile, Gson gson) {
+        this.journalFile = journalFile;
+        this.rotatedFile = new File(journalFile.getPath() + ".old");
+        this.gson = gson;
+    }
+
+    /**
+     * Appends one mutation to the journal. The entry reaches the OS immediately but is only
+     * guaranteed to be on disk after {@link #sync()}.
+     *
+     * @param mutation the change to record
+     * @throws IOException if the append fails
+     */
+    public synchronized void append(GateMutation mutation) throws IOException {
+        if (out == null) {
+            if (journalFile.getParentFile() != null) {
+                journalFile.getParentFile().mkdirs();
+            }
+            out = new FileOutputStream(journalFile, true);
+        }
+
+        out.write(encodeLine(gson.toJson(mutation)));
+        entryCount++;
+    }
+
+    /**
+     * Appends several mutations as one line, so a crash can never leave only part of them
+     * in the journal. Used for batches and transactions.
+     *
+     * @param mutations the changes to record, in order
+     * @throws IOException if the append fails
+     */
+    public synchronized void appendAll(List<GateMutation> mutations) throws IOException {
+        if (mutations.size() == 1) {
+            append(mutations.get(0));
+            return;
+        }
+        if (mutations.isEmpty()) {
+            return;
+        }
+
+        if (out == null) {
+            if (journalFile.getParentFile() != null) {
+                journalFile.getParentFile().mkdirs();
+            }
+            out = new FileOutputStream(journalFile, true);
+        }
+
+        out.write(encodeLine(gson.toJson(mutations.toArray(new GateMutation[0]))));
+        entryCount += mutations.size();
+    }
+
+    /**
+     * Forces every entry appended so far to disk.
+     *
+     * @throws IOException if the sync fails
+     */
+    public synchronized void sync() throws IOException {
+        if (out != null) {
+            out.getChannel().force(false);
+        }
+    }
+
+    /**
+     * Reads every intact entry, rotated file first, in the order they were written.
+     *
+     * @return the mutations to replay on top of the base snapshot
+     */
+    public synchronized List<GateMutation> readAll() {
+        List<GateMutation> mutations = new ArrayList<>();
+        readFile(rotatedFile, mutations);
+        rotatedCount = mutations.size();
+        readFile(journalFile, mutations);
+        entryCount = mutations.size();
+        return mutations;
+    }
+
+    /**
+     * Moves the live journal aside so new appends start on an empty file.
+     * If an earlier compaction left a rotated file behind, the live entries are
+     * appended to it instead so nothing is lost.
+     *
+     * @throws IOException if the files cannot be moved
+     */
+    public synchronized void rotate() throws IOException {
+        closeStream();
+        rotatedCount = entryCount;
+
+        if (!journalFile.exists()) {
+            return;
+        }
+
+        if (rotatedFile.exists()) {
+            Files.write(rotatedFile.toPath(), Files.readAllBytes(journalFile.toPath()), StandardOpenOption.APPEND);
+            Files.delete(journalFile.toPath());
+        } else {
+            Files.move(journalFile.toPath(), rotatedFile.toPath());
+        }
+    }
+
+    /**
+     * Deletes the rotated journal once its entries are safely in a snapshot.
+     * Entries appended since {@link #rotate()} stay in the live journal.
+     */
+    public synchronized void discardRotated() {
+        try {
+            Files.deleteIfExists(rotatedFile.toPath());
+            entryCount -= rotatedCount;
+            rotatedCount = 0;
+        } catch (IOException e) {
+            LOGGER.error("[GataJournal] Failed to delete rotated journal {}", rotatedFile.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * @return number of entries that a compaction would fold into the snapshot
+     */
+    public synchronized int size() {
+        return entryCount;
+    }
+
+    /**
+     * Closes the append stream. The journal reopens it on the next append.
+     */
+    public synchronized void close() {
+        closeStream();
+    }
+
+    // === Helpers ===
+
+    private void closeStream() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            LOGGER.error("[GataJournal] Failed to close journal stream", e);
+        }
+        out = null;
+    }
+
+    private byte[] encodeLine(String entry) {
+        byte[] json = entry.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(json);
+
+        String line = Long.toHexString(crc.getValue()) + " " + new String(json, StandardCharsets.UTF_8) + "\n";
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void readFile(File file, List<GateMutation> into) {
+        if (!file.exists()) {
+            return;
+        }
+
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                int split = line.indexOf(' ');
+                if (split <= 0) {
+                    LOGGER.warn("[GataJournal] Skipping malformed entry {}:{}", file.getName(), lineNumber);
+                    continue;
+                }
+
+                String json = line.substring(split + 1);
+                CRC32 crc = new CRC32();
+                crc.update(json.getBytes(StandardCharsets.UTF_8));
+                if (!Long.toHexString(crc.getValue()).equals(line.substring(0, split))) {
+                    LOGGER.warn("[GataJournal] Skipping entry with bad checksum {}:{}", file.getName(), lineNumber);
+                    continue;
+                }
+
+                try {
+                    if (json.startsWith("[")) {
+                        // A group is all or nothing
+                        GateMutation[] group = gson.fromJson(json, GateMutation[].class);
+                        if (group != null && Arrays.stream(group).allMatch(m -> m != null && m.getType() != null)) {
+                            into.addAll(Arrays.asList(group));
+                        } else {
+                            LOGGER.warn("[GataJournal] Skipping incomplete group entry {}:{}", file.getName(), lineNumber);
+                        }
+                        continue;
+                    }
+
+                    GateMutation mutation = gson.fromJson(json, GateMutation.class);
+                    if (mutation != null && mutation.getType() != null) {
+                        into.add(mutation);
+                    }
+                } catch (JsonParseException e) {
+                    LOGGER.warn("[GataJournal] Skipping unreadable entry {}:{}", file.getName(), lineNumber, e);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("[GataJournal] Failed to read journal {}", file.getAbsolutePath(), e);
+        }
+    }
+}
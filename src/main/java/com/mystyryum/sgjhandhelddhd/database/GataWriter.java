@@ -0,0 +1,248 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single background writer that owns all Gatabase disk I/O.
+ * <p>
+ * Mutations are applied to the in-memory table by the caller and then handed to
+ * {@link #submit}, which only enqueues them and returns a future. The writer
+ * thread drains the queue, coalescing every change that arrives within the
+ * configured window into one journal append + fsync, and completes the futures
+ * once their entries are durable. Compactions run on the same thread, so the
+ * journal never has two writers.
+ * <p>
+ * Callers on the network or tick threads therefore never wait for the disk.
+ */
+public class GataWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GataWriter.class);
+
+    /**
+     * Writes a full snapshot of the current table. Supplied by {@link GataBase}.
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        void writeSnapshot() throws IOException;
+    }
+
+    /** One queued item: mutations to journal, or a bare barrier when {@code mutations} is empty. */
+    private record Pending(List<GateMutation> mutations, CompletableFuture<Void> durable) {}
+
+    /** Marker that tells the writer thread to finish up and exit. */
+    private static final Pending STOP = new Pending(List.of(), null);
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private final GataJournal journal;
+
+    private final SnapshotWriter snapshotWriter;
+
+    /** Set when a compaction was requested outside the normal threshold check. */
+    private volatile boolean compactionRequested = false;
+
+    private Thread thread;
+
+    public GataWriter(GataJournal journal, SnapshotWriter snapshotWriter) {
+        this.journal = journal;
+        this.snapshotWriter = snapshotWriter;
+    }
+
+    /**
+     * Starts the writer thread if it is not already running.
+     */
+    public synchronized void start() {
+        if (thread != null && thread.isAlive()) {
+            return;
+        }
+        thread = new Thread(this::run, "GatabaseWriter");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("[GataWriter] Writer thread started.");
+    }
+
+    /**
+     * Enqueues a mutation for the journal. Never blocks.
+     *
+     * @param mutation a change that has already been applied to the in-memory table
+     * @return a future that completes once the change is on disk
+     */
+    public CompletableFuture<Void> submit(GateMutation mutation) {
+        return submitAll(List.of(mutation));
+    }
+
+    /**
+     * Enqueues a batch of mutations as one item. They land in the same journal flush as a single
+     * all-or-nothing journal entry. Never blocks.
+     *
+     * @param mutations changes that have already been applied to the in-memory table, in order
+     * @return a future that completes once every change in the batch is on disk
+     */
+    public CompletableFuture<Void> submitAll(List<GateMutation> mutations) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        queue.add(new Pending(List.copyOf(mutations), durable));
+        return durable;
+    }
+
+    /**
+     * @return a future that completes once every mutation submitted before this call is on disk
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        queue.add(new Pending(List.of(), durable));
+        return durable;
+    }
+
+    /**
+     * Asks the writer to fold the journal into a new snapshot as soon as it is idle.
+     */
+    public void requestCompaction() {
+        compactionRequested = true;
+        queue.add(new Pending(List.of(), new CompletableFuture<>()));
+    }
+
+    /**
+     * Writes everything still queued, compacts the journal and stops the writer thread.
+     * Blocks until done (or until the timeout passes).
+     */
+    public void shutdown() {
+        Thread running;
+        synchronized (this) {
+            running = thread;
+            thread = null;
+        }
+        if (running == null) {
+            return;
+        }
+
+        compactionRequested = true;
+        queue.add(STOP);
+        try {
+            running.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (running.isAlive()) {
+            LOGGER.error("[GataWriter] Writer thread did not finish in time; pending changes remain in the journal.");
+        } else {
+            LOGGER.info("[GataWriter] Writer thread stopped.");
+        }
+    }
+
+    // === Writer thread ===
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        boolean stopping = false;
+
+        while (!stopping) {
+            try {
+                Pending first = queue.take();
+                batch.add(first);
+
+                // Coalesce everything that arrives within the window into one flush
+                long window = Config.SAVECOALESCEMS.get();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(window);
+                while (first != STOP) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    if (next == STOP) {
+                        break;
+                    }
+                }
+
+                stopping = batch.remove(STOP);
+                writeBatch(batch);
+                batch.clear();
+
+                if (compactionRequested || journal.size() >= Config.JOURNALCOMPACTTHRESHOLD.get()) {
+                    compact();
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("[GataWriter] Writer thread interrupted; flushing what is queued.");
+                queue.drainTo(batch);
+                batch.remove(STOP);
+                writeBatch(batch);
+                batch.clear();
+                stopping = true;
+            }
+        }
+
+        journal.close();
+    }
+
+    /**
+     * Appends every mutation in the batch, forces the journal once and completes the futures.
+     */
+    private void writeBatch(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        IOException failure = null;
+        int written = 0;
+        try {
+            for (Pending pending : batch) {
+                journal.appendAll(pending.mutations());
+                written += pending.mutations().size();
+            }
+            journal.sync();
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        if (failure != null) {
+            // The changes are still in memory; a snapshot captures them instead
+            LOGGER.error("[GataWriter] Journal write failed, forcing a full snapshot", failure);
+            if (compact()) {
+                failure = null;
+            }
+        } else if (written > 0) {
+            LOGGER.debug("[GataWriter] Flushed {} journal entries in one write.", written);
+        }
+
+        for (Pending pending : batch) {
+            if (failure == null) {
+                pending.durable().complete(null);
+            } else {
+                pending.durable().completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Folds the journal into a new base snapshot.
+     *
+     * @return true if the snapshot was written
+     */
+    private boolean compact() {
+        compactionRequested = false;
+        LOGGER.info("Saving Gatabase...");
+        try {
+            journal.rotate();
+            snapshotWriter.writeSnapshot();
+            journal.discardRotated();
+            LOGGER.info("Save Complete");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // Rotated entries stay on disk and are replayed on the next start
+            LOGGER.error("Failed to write Gatabase file", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+/**
+ * Packed representation of a chevron address.
+ * <p>
+ * Chevron values are bounded to 0–38 and there are at most 9 of them (see
+ * {@link GateObject#Checker()}), so a full address fits in one {@code long}:
+ * <pre>
+ *   bits 60–63 : number of chevrons
+ *   bits 0–53  : chevron i stored in bits [6*i, 6*i + 5]
+ * </pre>
+ * The length nibble keeps addresses of different lengths distinct (e.g. {@code [0,1]} vs {@code [0]}).
+ * Packed addresses are used as keys everywhere an address is looked up, which avoids
+ * hashing and allocating {@code int[]}s.
+ */
+public final class GateAddress {
+
+    /** Maximum number of chevrons in an address. */
+    public static final int MAX_LENGTH = 9;
+
+    /** Largest chevron value that fits in a 6-bit slot. */
+    private static final int SLOT_MASK = 0x3F;
+
+    /** Bit position of the length nibble. */
+    private static final int LENGTH_SHIFT = 60;
+
+    /**
+     * Returned for chevron arrays that cannot be packed (null, too long, or out of range).
+     * Never produced by {@link #pack}, since its length nibble would read 15.
+     */
+    public static final long INVALID = -1L;
+
+    private GateAddress() {}
+
+    /**
+     * Packs a chevron array.
+     *
+     * @param chevrons the address to pack
+     * @return the packed address, or {@link #INVALID} if it does not fit
+     */
+    public static long pack(int[] chevrons) {
+        if (chevrons == null || chevrons.length > MAX_LENGTH) {
+            return INVALID;
+        }
+
+        long packed = (long) chevrons.length << LENGTH_SHIFT;
+        for (int i = 0; i < chevrons.length; i++) {
+            int chevron = chevrons[i];
+            if (chevron < 0 || chevron > SLOT_MASK) {
+                return INVALID;
+            }
+            packed |= (long) chevron << (6 * i);
+        }
+        return packed;
+    }
+
+    /**
+     * @param packed a packed address
+     * @return the number of chevrons in it
+     */
+    public static int length(long packed) {
+        return (int) (packed >>> LENGTH_SHIFT);
+    }
+
+    /**
+     * @param packed a packed address
+     * @param index  chevron position
+     * @return the chevron at that position
+     */
+    public static int chevron(long packed, int index) {
+        return (int) (packed >>> (6 * index)) & SLOT_MASK;
+    }
+
+    /**
+     * Unpacks an address back into a chevron array.
+     *
+     * @param packed a packed address (not {@link #INVALID})
+     * @return a new chevron array
+     */
+    public static int[] unpack(long packed) {
+        int[] chevrons = new int[length(packed)];
+        for (int i = 0; i < chevrons.length; i++) {
+            chevrons[i] = chevron(packed, i);
+        }
+        return chevrons;
+    }
+}
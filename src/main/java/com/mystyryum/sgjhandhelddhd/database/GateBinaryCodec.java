@@ -0,0 +1,391 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of a Gatabase snapshot payload.
+ * <p>
+ * Layout (big-endian, as written by {@link DataOutputStream}):
+ * <pre>
+ *   int    magic 'SGDB'
+ *   byte   version
+ *   int    dimension count, then that many UTF dimension ids ("minecraft:overworld")
+ *   int    gate count, then that many records:
+ *     int    record length (bytes after this field)
+ *     byte   flags (see FLAG_*)
+ *     long   gate id (version 2 and later; version 1 records have none and load with id 0)
+ *     long   packed address ({@link GateAddress}), or for RAW_ADDRESS: byte count + that many ints
+ *     short  dimension index into the table above, -1 if none
+ *     long   creator UUID, most significant bits   (absent with NO_CREATOR)
+ *     long   creator UUID, least significant bits  (absent with NO_CREATOR)
+ *     UTF    name
+ *     int    whitelist size, then two longs per UUID
+ *     int    blacklist size, then two longs per UUID
+ * </pre>
+ * Dimension ids are stored once instead of once per gate, UUIDs take 16 bytes and
+ * the five booleans share one byte. The record length lets readers skip a record
+ * without decoding it.
+ * <p>
+ * Fields the gate table indexes come first in each record, so a lazy decode
+ * ({@link #decode(ByteBuffer, boolean)}) can stop after the name and leave the
+ * UUID lists in the (usually memory-mapped) buffer until they are first needed. Encoding
+ * such a gate again copies those list bytes over unchanged.
+ */
+public final class GateBinaryCodec {
+
+    /** Payload format name written into snapshot headers. */
+    public static final String FORMAT = "binary";
+
+    /** 'SGDB' */
+    private static final int MAGIC = 0x53474442;
+
+    private static final byte VERSION = 2;
+
+    static final int FLAG_PUBLIC = 1;
+    static final int FLAG_IRIS = 1 << 1;
+    static final int FLAG_DEFENSIVE = 1 << 2;
+    static final int FLAG_DEFAULT = 1 << 3;
+    static final int FLAG_ADMIN = 1 << 4;
+    /** Address could not be packed into a long (legacy data); stored as a plain int list. */
+    static final int FLAG_RAW_ADDRESS = 1 << 5;
+    /** Gate has no creator (legacy data). */
+    static final int FLAG_NO_CREATOR = 1 << 6;
+
+    private GateBinaryCodec() {}
+
+    /**
+     * Encodes gates into a binary snapshot payload.
+     *
+     * @param gates the gates to encode
+     * @return the payload bytes
+     */
+    public static byte[] encode(List<GateObject> gates) {
+        try {
+            // === Dimension string table ===
+            Map<ResourceKey<Level>, Integer> dimensionIndex = new LinkedHashMap<>();
+            for (GateObject gate : gates) {
+                if (gate.getDimension() != null) {
+                    dimensionIndex.putIfAbsent(gate.getDimension(), dimensionIndex.size());
+                }
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + gates.size() * 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+
+            out.writeInt(dimensionIndex.size());
+            for (ResourceKey<Level> dimension : dimensionIndex.keySet()) {
+                out.writeUTF(dimension.location().toString());
+            }
+
+            // === Gate records ===
+            out.writeInt(gates.size());
+            ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(128);
+            DataOutputStream record = new DataOutputStream(recordBytes);
+            for (GateObject gate : gates) {
+                recordBytes.reset();
+                writeRecord(record, gate, dimensionIndex);
+                out.writeInt(recordBytes.size());
+                recordBytes.writeTo(out);
+            }
+
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws; only a name longer than writeUTF allows gets here
+            throw new IllegalArgumentException("Gate cannot be encoded: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a binary snapshot payload.
+     *
+     * @param payload bytes produced by {@link #encode}
+     * @return the decoded gates
+     * @throws IOException if the payload is not a valid binary snapshot
+     */
+    public static List<GateObject> decode(byte[] payload) throws IOException {
+        return decode(ByteBuffer.wrap(payload), false);
+    }
+
+    /**
+     * Decodes a binary snapshot payload straight from a buffer.
+     * <p>
+     * With {@code lazy} set, only name, address, flags, dimension and creator are decoded
+     * up front. The whitelist and blacklist of each gate are decoded from {@code payload}
+     * on first access (see {@link GateObject#getWhitelist()}), so the buffer must stay valid
+     * until then. List sizes are still checked up front, so a malformed record fails the load.
+     *
+     * @param payload bytes produced by {@link #encode}; not modified
+     * @param lazy    whether to defer decoding of the UUID lists
+     * @return the decoded gates
+     * @throws IOException if the payload is not a valid binary snapshot
+     */
+    public static List<GateObject> decode(ByteBuffer payload, boolean lazy) throws IOException {
+        ByteBuffer buffer = payload.duplicate();
+        DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary Gatabase snapshot");
+        }
+        byte version = in.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported binary snapshot version " + version);
+        }
+
+        List<ResourceKey<Level>> dimensions = readDimensionTable(in);
+
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Negative gate count " + count);
+        }
+        List<GateObject> gates = new ArrayList<>(Math.min(count, 1 << 16));
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Gate record " + i + " is truncated");
+            }
+            ByteBuffer record = buffer.slice(buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            gates.add(readRecord(record, version, dimensions, lazy));
+        }
+        return gates;
+    }
+
+    // === Records ===
+
+    private static void writeRecord(DataOutputStream out, GateObject gate,
+                                    Map<ResourceKey<Level>, Integer> dimensionIndex) throws IOException {
+        long address = GateAddress.pack(gate.getChevrons());
+
+        int flags = 0;
+        if (gate.isPublic()) flags |= FLAG_PUBLIC;
+        if (gate.hasIris()) flags |= FLAG_IRIS;
+        if (gate.isDefensive()) flags |= FLAG_DEFENSIVE;
+        if (gate.isDefaultGate()) flags |= FLAG_DEFAULT;
+        if (gate.getAdmin()) flags |= FLAG_ADMIN;
+        if (address == GateAddress.INVALID) flags |= FLAG_RAW_ADDRESS;
+        if (gate.getCreator() == null) flags |= FLAG_NO_CREATOR;
+        out.writeByte(flags);
+        out.writeLong(gate.getId());
+
+        if (address != GateAddress.INVALID) {
+            out.writeLong(address);
+        } else {
+            int[] chevrons = gate.getChevrons() != null ? gate.getChevrons() : new int[0];
+            out.writeByte(chevrons.length);
+            for (int chevron : chevrons) {
+                out.writeInt(chevron);
+            }
+        }
+
+        out.writeShort(gate.getDimension() != null ? dimensionIndex.get(gate.getDimension()) : -1);
+
+        if (gate.getCreator() != null) {
+            writeUuid(out, gate.getCreator());
+        }
+
+        out.writeUTF(gate.getName());
+
+        // Lists that were never touched since a lazy load are copied as they are, without decoding them
+        GateObject.ListDecoder deferred = gate.deferredLists();
+        ByteBuffer encodedLists = deferred != null ? deferred.encodedLists() : null;
+        if (encodedLists != null) {
+            writeBytes(out, encodedLists);
+        } else {
+            writeUuids(out, gate.getWhitelist());
+            writeUuids(out, gate.getBlacklist());
+        }
+    }
+
+    private static GateObject readRecord(ByteBuffer record, byte version, List<ResourceKey<Level>> dimensions,
+                                         boolean lazy) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteBufferInputStream(record));
+        int flags = in.readUnsignedByte();
+        long id = version >= 2 ? in.readLong() : 0L;
+
+        int[] chevrons;
+        if ((flags & FLAG_RAW_ADDRESS) == 0) {
+            chevrons = GateAddress.unpack(in.readLong());
+        } else {
+            chevrons = new int[in.readUnsignedByte()];
+            for (int i = 0; i < chevrons.length; i++) {
+                chevrons[i] = in.readInt();
+            }
+        }
+
+        int dimensionIndex = in.readShort();
+        if (dimensionIndex >= dimensions.size()) {
+            throw new IOException("Dimension index " + dimensionIndex + " out of range");
+        }
+        ResourceKey<Level> dimension = dimensionIndex >= 0 ? dimensions.get(dimensionIndex) : null;
+
+        UUID creator = (flags & FLAG_NO_CREATOR) == 0 ? readUuid(in) : null;
+        String name = in.readUTF();
+
+        // Gates with empty lists gain nothing from deferring; decode them right away
+        boolean deferred = lazy && checkListSizes(record) > 0;
+        List<UUID> whitelist = deferred ? null : readUuids(in);
+        List<UUID> blacklist = deferred ? null : readUuids(in);
+
+        GateObject gate = new GateObject(name, dimension,
+                (flags & FLAG_PUBLIC) != 0, chevrons,
+                (flags & FLAG_IRIS) != 0, (flags & FLAG_DEFENSIVE) != 0,
+                whitelist, blacklist,
+                (flags & FLAG_DEFAULT) != 0, creator, (flags & FLAG_ADMIN) != 0);
+        gate.setId(id);
+
+        if (deferred) {
+            gate.deferLists(new MappedLists(record.slice(), name));
+        }
+        return gate;
+    }
+
+    /**
+     * Lists of a lazily decoded record, left in the snapshot buffer. The raw bytes are handed
+     * back through {@link #encodedLists()}, so a gate that is saved again before anyone reads
+     * its lists is written without ever decoding them.
+     */
+    private static final class MappedLists implements GateObject.ListDecoder {
+
+        private final ByteBuffer lists;
+        private final String name;
+
+        private MappedLists(ByteBuffer lists, String name) {
+            this.lists = lists;
+            this.name = name;
+        }
+
+        @Override
+        public void decodeInto(List<UUID> whitelist, List<UUID> blacklist) {
+            DataInputStream listIn = new DataInputStream(new ByteBufferInputStream(lists.duplicate()));
+            try {
+                whitelist.addAll(readUuids(listIn));
+                blacklist.addAll(readUuids(listIn));
+            } catch (IOException e) {
+                // Sizes were checked at load time, so this means the mapping itself went bad
+                throw new UncheckedIOException("Failed to decode lists of gate '" + name + "'", e);
+            }
+        }
+
+        @Override
+        public void decodeWhitelistInto(List<UUID> whitelist) {
+            DataInputStream listIn = new DataInputStream(new ByteBufferInputStream(lists.duplicate()));
+            try {
+                whitelist.addAll(readUuids(listIn));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to decode whitelist of gate '" + name + "'", e);
+            }
+        }
+
+        @Override
+        public ByteBuffer encodedLists() {
+            return lists.duplicate();
+        }
+    }
+
+    /**
+     * Validates the two UUID list sizes at the buffer's position without consuming them.
+     *
+     * @return total number of UUIDs in both lists
+     * @throws IOException if the sizes do not match the rest of the record exactly
+     */
+    private static long checkListSizes(ByteBuffer record) throws IOException {
+        int start = record.position();
+        long remaining = record.remaining();
+        if (remaining < 8) {
+            throw new IOException("Gate record is truncated");
+        }
+        int white = record.getInt(start);
+        long blackAt = 4 + 16L * white;
+        if (white < 0 || blackAt + 4 > remaining) {
+            throw new IOException("Bad UUID list size " + white);
+        }
+        int black = record.getInt(start + (int) blackAt);
+        if (black < 0 || blackAt + 4 + 16L * black != remaining) {
+            throw new IOException("Bad UUID list size " + black);
+        }
+        return (long) white + black;
+    }
+
+    // === Shared pieces ===
+
+    private static List<ResourceKey<Level>> readDimensionTable(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > Short.MAX_VALUE) {
+            throw new IOException("Bad dimension count " + count);
+        }
+        List<ResourceKey<Level>> dimensions = new ArrayList<>(count);
+        Map<String, ResourceKey<Level>> seen = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = in.readUTF();
+            ResourceLocation location = ResourceLocation.tryParse(id);
+            if (location == null) {
+                throw new IOException("Bad dimension id '" + id + "'");
+            }
+            dimensions.add(seen.computeIfAbsent(id, key -> GateInterner.dimension(location)));
+        }
+        return dimensions;
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return GateInterner.uuid(in.readLong(), in.readLong());
+    }
+
+    private static void writeUuids(DataOutputStream out, List<UUID> uuids) throws IOException {
+        if (uuids == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(uuids.size());
+        for (UUID uuid : uuids) {
+            writeUuid(out, uuid);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, ByteBuffer bytes) throws IOException {
+        if (bytes.hasArray()) {
+            out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            return;
+        }
+        byte[] chunk = new byte[Math.min(bytes.remaining(), 4096)];
+        while (bytes.hasRemaining()) {
+            int length = Math.min(chunk.length, bytes.remaining());
+            bytes.get(chunk, 0, length);
+            out.write(chunk, 0, length);
+        }
+    }
+
+    private static List<UUID> readUuids(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0 || (long) size * 16 > in.available()) {
+            throw new IOException("Bad UUID list size " + size);
+        }
+        List<UUID> uuids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            uuids.add(readUuid(in));
+        }
+        return uuids;
+    }
+}
@@ -0,0 +1,142 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseChangedEvent.ChangeType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, in-memory log of the gates changed by each published {@link GateTable} version,
+ * from which {@link GataBase} answers client sync requests with a {@link GateDelta}.
+ * <p>
+ * Each entry holds the compact gate before and after one version, so a delta can tell a
+ * gate that became visible to a player (ADD) from one that changed (UPDATE) or left the
+ * player's view (REMOVE). Once the log is full the oldest entries are dropped; clients
+ * behind that point get a full list instead.
+ * <p>
+ * The log lives only as long as the loaded database. {@link #reset} starts a new epoch,
+ * so versions a client saw before a restart never count as current.
+ */
+final class GateChangeLog {
+
+    private static final class Entry {
+
+        final long version;
+        final long id;
+        final CompactGate before;
+        final CompactGate after;
+
+        Entry(long version, long id, CompactGate before, CompactGate after) {
+            this.version = version;
+            this.id = id;
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    /** Identifies the loaded database; never 0, which clients use for "nothing yet". */
+    private long epoch = newEpoch();
+
+    /** Oldest version a client may be at and still get a delta. */
+    private long floor = 0;
+
+    /** Version of the newest recorded table. */
+    private long latest = 0;
+
+    /**
+     * Forgets every entry and starts a new epoch at {@code version}.
+     */
+    synchronized void reset(long version) {
+        entries.clear();
+        epoch = newEpoch();
+        floor = version;
+        latest = version;
+    }
+
+    /**
+     * Records the gates that differ between two consecutive tables.
+     *
+     * @param previous  the table before the change
+     * @param published the table after it
+     * @param touched   ids that may differ
+     * @param capacity  the most entries to keep
+     */
+    synchronized void record(GateTable previous, GateTable published, Collection<Long> touched, int capacity) {
+        latest = published.getVersion();
+        if (touched.size() > capacity) {
+            // Larger than the whole log, e.g. an import; every client needs a full list anyway
+            entries.clear();
+            floor = latest;
+            return;
+        }
+
+        for (long id : touched) {
+            CompactGate before = previous.getCompact(id);
+            CompactGate after = published.getCompact(id);
+            if (before != after) {
+                entries.addLast(new Entry(latest, id, before, after));
+            }
+        }
+        while (entries.size() > capacity) {
+            floor = entries.removeFirst().version;
+        }
+    }
+
+    synchronized long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Collects what changed for one player since {@code version}.
+     *
+     * @param epoch   the epoch the client's version belongs to
+     * @param version the last version the client saw
+     * @param visible whether the player can see a gate
+     * @return an incremental delta, or null if the log cannot cover the gap
+     */
+    synchronized GateDelta since(long epoch, long version, Predicate<CompactGate> visible) {
+        if (epoch != this.epoch || version < floor || version > latest) {
+            return null;
+        }
+
+        // One state per gate: its state before the first and after the last change
+        Map<Long, CompactGate[]> net = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            if (entry.version > version) {
+                net.computeIfAbsent(entry.id, id -> new CompactGate[]{entry.before, null})[1] = entry.after;
+            }
+        }
+
+        List<GateDelta.Change> changes = new ArrayList<>();
+        for (Map.Entry<Long, CompactGate[]> gate : net.entrySet()) {
+            CompactGate before = gate.getValue()[0];
+            CompactGate after = gate.getValue()[1];
+            boolean wasVisible = before != null && visible.test(before);
+            boolean isVisible = after != null && visible.test(after);
+
+            if (isVisible) {
+                ChangeType type = wasVisible ? ChangeType.UPDATE : ChangeType.ADD;
+                changes.add(new GateDelta.Change(type, gate.getKey(), after.toGateObject()));
+            } else if (wasVisible) {
+                changes.add(new GateDelta.Change(ChangeType.REMOVE, gate.getKey(), null));
+            }
+        }
+        return new GateDelta(this.epoch, latest, false, changes);
+    }
+
+    private static long newEpoch() {
+        long epoch;
+        do {
+            epoch = ThreadLocalRandom.current().nextLong();
+        } while (epoch == 0);
+        return epoch;
+    }
+}
@@ -0,0 +1,201 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseChangedEvent.ChangeType;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The changes a client needs to bring its gate list up to date.
+ * <p>
+ * Versions are those of {@link GateTable}; the epoch identifies one loaded database, so
+ * versions from another server, world or server run are never mixed up. A delta is either:
+ * <ul>
+ *   <li>full — the client drops its list and takes the ADD changes as the whole list</li>
+ *   <li>incremental — ADD, UPDATE and REMOVE changes since the version the client reported,
+ *       one per gate, already filtered to the gates the player can see</li>
+ * </ul>
+ * A client that is up to date receives an incremental delta without changes.
+ * <p>
+ * Client-safe: contains no server-only types.
+ */
+public final class GateDelta {
+
+    /**
+     * One changed gate. {@code gate} is null for REMOVE.
+     */
+    public static final class Change {
+
+        private final ChangeType type;
+        private final long id;
+        private final GateObject gate;
+
+        public Change(ChangeType type, long id, GateObject gate) {
+            this.type = type;
+            this.id = id;
+            this.gate = gate;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public GateObject getGate() {
+            return gate;
+        }
+    }
+
+    /** Upper bound of the bytes a delta spends besides its changes. */
+    private static final int PAGE_OVERHEAD = 8 + 10 + 1 + 5 + 5 + 5;
+
+    private final long epoch;
+    private final long version;
+    private final boolean full;
+    private final List<Change> changes;
+
+    public GateDelta(long epoch, long version, boolean full, List<Change> changes) {
+        this.epoch = epoch;
+        this.version = version;
+        this.full = full;
+        this.changes = changes;
+    }
+
+    /**
+     * @return a full delta holding every gate in {@code gates}
+     */
+    public static GateDelta full(long epoch, long version, List<GateObject> gates) {
+        List<Change> changes = new ArrayList<>(gates.size());
+        for (GateObject gate : gates) {
+            changes.add(new Change(ChangeType.ADD, gate.getId(), gate));
+        }
+        return new GateDelta(epoch, version, true, changes);
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the version the client is at once it has applied this delta
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Splits this delta into pages of at most {@code maxBytes} encoded bytes each, going by
+     * an upper bound of each gate's size. Every page carries this delta's epoch, version
+     * and full flag; a single gate larger than a page gets a page of its own.
+     *
+     * @param maxBytes the page size to aim for
+     * @return the pages in order; at least one, even for a delta without changes
+     */
+    public List<GateDelta> paginate(int maxBytes) {
+        List<GateDelta> pages = new ArrayList<>();
+        List<Change> page = new ArrayList<>();
+        Set<ResourceKey<Level>> dimensions = new HashSet<>();
+        Set<UUID> players = new HashSet<>();
+        int size = PAGE_OVERHEAD;
+        for (Change change : changes) {
+            if (change.gate == null) {
+                size += 11;
+            } else {
+                // Sized against the current page; a gate that does not fit is sized again for a new one
+                int changeSize = 1 + GateWireCodec.estimateSize(change.gate, dimensions, players);
+                if (!page.isEmpty() && size + changeSize > maxBytes) {
+                    pages.add(new GateDelta(epoch, version, full, page));
+                    page = new ArrayList<>();
+                    dimensions.clear();
+                    players.clear();
+                    size = PAGE_OVERHEAD;
+                    changeSize = 1 + GateWireCodec.estimateSize(change.gate, dimensions, players);
+                }
+                GateWireCodec.addTableEntries(change.gate, dimensions, players);
+                size += changeSize;
+            }
+            page.add(change);
+        }
+        pages.add(new GateDelta(epoch, version, full, page));
+        return pages;
+    }
+
+    /**
+     * Serialization structure:
+     * <ul>
+     *  <li>1. epoch (long), version (VarLong)</li>
+     *  <li>2. full (boolean)</li>
+     *  <li>3. the {@link GateWireCodec} tables for the gates in this delta</li>
+     *  <li>4. change count (VarInt), then per change its type, followed by the gate
+     *         (ADD, UPDATE) or the gate id as a VarLong (REMOVE)</li>
+     * </ul>
+     */
+    public void serialize(FriendlyByteBuf buf) {
+        buf.writeLong(epoch);
+        buf.writeVarLong(version);
+        buf.writeBoolean(full);
+
+        List<GateObject> gates = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            if (change.gate != null) {
+                gates.add(change.gate);
+            }
+        }
+        GateWireCodec codec = GateWireCodec.writeTables(buf, gates);
+
+        buf.writeVarInt(changes.size());
+        for (Change change : changes) {
+            buf.writeEnum(change.type);
+            if (change.type == ChangeType.REMOVE) {
+                buf.writeVarLong(change.id);
+            } else {
+                codec.write(buf, change.gate);
+            }
+        }
+    }
+
+    /**
+     * Reads a delta written by {@link #serialize}.
+     */
+    public static GateDelta deserialize(FriendlyByteBuf buf) {
+        long epoch = buf.readLong();
+        long version = buf.readVarLong();
+        boolean full = buf.readBoolean();
+        GateWireCodec codec = GateWireCodec.readTables(buf);
+
+        int size = buf.readVarInt();
+        List<Change> changes = new ArrayList<>(Math.min(size, 1 << 12));
+        for (int i = 0; i < size; i++) {
+            ChangeType type = buf.readEnum(ChangeType.class);
+            if (type == ChangeType.REMOVE) {
+                changes.add(new Change(type, buf.readVarLong(), null));
+            } else {
+                GateObject gate = codec.read(buf);
+                changes.add(new Change(type, gate.getId(), gate));
+            }
+        }
+        return new GateDelta(epoch, version, full, changes);
+    }
+
+    @Override
+    public String toString() {
+        return "GateDelta{epoch=" + epoch + ", version=" + version + ", full=" + full + ", changes=" + changes.size() + '}';
+    }
+}
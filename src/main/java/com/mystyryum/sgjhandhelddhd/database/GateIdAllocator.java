@@ -0,0 +1,89 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hands out gate ids: positive, increasing and never reused, also across restarts.
+ * <p>
+ * Ids are reserved in blocks. Before the first id of a block is handed out, the end of the
+ * block is written to a small snapshot file ({@code GataBase.ids}, via {@link SnapshotFile},
+ * so the write is atomic). After a restart or crash the next id starts above both that
+ * mark and the highest id found in the loaded data, so an id that was handed out, even one
+ * whose gate has been deleted since, is never handed out again. A crash wastes at most the
+ * rest of one block.
+ * <p>
+ * Not thread-safe; {@link GataBase} only calls it while holding its database lock.
+ */
+final class GateIdAllocator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GateIdAllocator.class);
+
+    private static final String FORMAT = "ids";
+
+    /** Ids reserved per write of the mark file. */
+    private static final long BLOCK_SIZE = 1024;
+
+    private final File file;
+
+    /** Next id to hand out. */
+    private long next = 1;
+
+    /** First id not covered by the reservation on disk. */
+    private long reservedUntil = 1;
+
+    /**
+     * @param file the mark file
+     */
+    GateIdAllocator(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the mark file and moves past every id already in use. Called once after loading.
+     *
+     * @param highestLoadedId the highest id present in the loaded gates
+     */
+    void load(long highestLoadedId) {
+        long mark = 1;
+        SnapshotFile.Contents contents = SnapshotFile.read(file);
+        if (contents.getStatus() == SnapshotFile.Status.VALID) {
+            try {
+                mark = Long.parseLong(new String(contents.getPayload(), StandardCharsets.UTF_8).trim());
+            } catch (NumberFormatException e) {
+                LOGGER.error("[GateIdAllocator] {} holds no id; continuing from the loaded gates", file.getAbsolutePath());
+            }
+        } else if (contents.isCorrupt()) {
+            LOGGER.error("[GateIdAllocator] {} is damaged; continuing from the loaded gates", file.getAbsolutePath());
+        }
+
+        next = Math.max(mark, highestLoadedId + 1);
+        reservedUntil = next;
+    }
+
+    /**
+     * @return a fresh id
+     * @throws UncheckedIOException if a new block could not be reserved on disk
+     */
+    long next() {
+        if (next >= reservedUntil) {
+            reserve(next + BLOCK_SIZE);
+        }
+        return next++;
+    }
+
+    private void reserve(long until) {
+        try {
+            SnapshotFile.write(file, Long.toString(until).getBytes(StandardCharsets.UTF_8), FORMAT);
+            reservedUntil = until;
+        } catch (IOException e) {
+            // Handing out unreserved ids could repeat them after a crash
+            throw new UncheckedIOException("Failed to reserve gate ids in " + file.getAbsolutePath(), e);
+        }
+    }
+}
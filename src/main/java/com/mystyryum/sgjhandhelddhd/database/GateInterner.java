@@ -0,0 +1,115 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared pools for the values that repeat across many gates: dimension keys and player UUIDs.
+ * <p>
+ * Every decoder (JSON loader, binary snapshots, packets, the string form) builds these through
+ * here, so a thousand gates in one dimension share one key, and all gates and list entries of a
+ * player share one {@link UUID}. Equal values then also tend to be the same instance, which makes
+ * most {@code equals} calls an identity check.
+ * <p>
+ * Dimension ids are cached as parsed keys, which skips {@link ResourceLocation#parse} for ids
+ * seen before. UUIDs are held weakly, so players who no longer appear anywhere are let go.
+ * Both pools are thread-safe and work the same on the client.
+ */
+public final class GateInterner {
+
+    /** Guards against unbounded growth from garbage ids (e.g. in a tampered packet). */
+    private static final int MAX_DIMENSION_IDS = 4096;
+
+    private static final ConcurrentHashMap<String, ResourceKey<Level>> DIMENSIONS = new ConcurrentHashMap<>();
+
+    private static final Interner<UUID> UUIDS = Interners.newWeakInterner();
+
+    private GateInterner() {}
+
+    /**
+     * Returns the dimension key for an id string.
+     *
+     * @param id a dimension id, e.g. {@code "minecraft:overworld"}
+     * @return the shared key
+     * @throws net.minecraft.ResourceLocationException if the id is not a valid resource location
+     */
+    public static ResourceKey<Level> dimension(String id) {
+        ResourceKey<Level> key = DIMENSIONS.get(id);
+        if (key != null) {
+            return key;
+        }
+
+        key = ResourceKey.create(Registries.DIMENSION, ResourceLocation.parse(id));
+        if (DIMENSIONS.size() < MAX_DIMENSION_IDS) {
+            DIMENSIONS.putIfAbsent(id, key);
+        }
+        return key;
+    }
+
+    /**
+     * @param location a dimension id
+     * @return the shared key for it
+     */
+    public static ResourceKey<Level> dimension(ResourceLocation location) {
+        return ResourceKey.create(Registries.DIMENSION, location);
+    }
+
+    /**
+     * Swaps a dimension key for the shared instance. Keys built by Gson reflection are
+     * not the interned instance and would otherwise break identity-based lookups.
+     *
+     * @param key a dimension key; may be null
+     * @return the shared key, or null
+     */
+    public static ResourceKey<Level> dimension(ResourceKey<Level> key) {
+        return key != null ? dimension(key.location()) : null;
+    }
+
+    /**
+     * @param uuid a UUID; may be null
+     * @return the shared instance equal to it, or null
+     */
+    public static UUID uuid(UUID uuid) {
+        return uuid != null ? UUIDS.intern(uuid) : null;
+    }
+
+    /**
+     * @return the shared UUID with the given bits
+     */
+    public static UUID uuid(long mostSignificantBits, long leastSignificantBits) {
+        return UUIDS.intern(new UUID(mostSignificantBits, leastSignificantBits));
+    }
+
+    /**
+     * @param uuid a UUID in its string form
+     * @return the shared UUID
+     * @throws IllegalArgumentException if the string is not a UUID
+     */
+    public static UUID uuid(String uuid) {
+        return UUIDS.intern(UUID.fromString(uuid));
+    }
+
+    /**
+     * Replaces a gate's dimension key, creator and list entries with their shared instances.
+     * For gates built outside this class's decoders, such as those Gson reads from the journal.
+     *
+     * @param gate the gate to update in place
+     */
+    public static void intern(GateObject gate) {
+        gate.setDimension(dimension(gate.getDimension()));
+        gate.setCreator(uuid(gate.getCreator()));
+        if (gate.getWhitelist() != null) {
+            gate.getWhitelist().replaceAll(GateInterner::uuid);
+        }
+        if (gate.getBlacklist() != null) {
+            gate.getBlacklist().replaceAll(GateInterner::uuid);
+        }
+    }
+}
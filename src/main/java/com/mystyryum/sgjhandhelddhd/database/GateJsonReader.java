@@ -0,0 +1,245 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for JSON gate lists ({@code GataBase.json} and hand-edited exports).
+ * <p>
+ * Instead of letting Gson build the whole {@code List<GateObject>} reflectively, the
+ * array is walked with a {@link JsonReader} and only one entry is held in memory at a
+ * time. Each entry is converted by hand, validated with {@link GateObject#Checker()}
+ * and passed straight to the caller's sink (normally a {@link GateTable.Builder}).
+ * <p>
+ * A bad entry (wrong field types, unparsable UUID, failed validation) is rejected and
+ * kept as raw JSON in {@link Result#getRejected()} so it can be written aside. Only
+ * broken JSON syntax fails the whole file.
+ * <p>
+ * {@link #readLines} reads the newline-delimited variant (one gate object per line) used
+ * for bulk imports; there a line with broken syntax only rejects that line.
+ * <p>
+ * Both dimension encodings are accepted: a plain id string ({@code "minecraft:overworld"})
+ * and the object Gson writes for a {@code ResourceKey}
+ * ({@code {"registryName": {...}, "location": {"namespace": ..., "path": ...}}}).
+ */
+final class GateJsonReader {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GateJsonReader.class);
+
+    /** Outcome of reading one file. */
+    static final class Result {
+        private int accepted;
+        private final List<JsonElement> rejected = new ArrayList<>();
+
+        /** @return number of gates passed to the sink */
+        int getAccepted() {
+            return accepted;
+        }
+
+        /** @return raw JSON of every entry that was skipped */
+        List<JsonElement> getRejected() {
+            return rejected;
+        }
+
+        /** @return the rejected entries as one JSON array */
+        JsonArray rejectedAsArray() {
+            JsonArray array = new JsonArray();
+            rejected.forEach(array::add);
+            return array;
+        }
+    }
+
+    private GateJsonReader() {}
+
+    /**
+     * Reads a JSON gate list and passes every valid gate to {@code sink}.
+     *
+     * @param source the JSON text; not closed
+     * @param sink   receives each valid gate, in file order
+     * @return counts and rejected entries
+     * @throws IOException        if the source cannot be read
+     * @throws JsonParseException if the text is not a JSON array of objects
+     */
+    static Result read(Reader source, Consumer<GateObject> sink) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        Result result = new Result();
+
+        JsonToken top = reader.peek();
+        if (top == JsonToken.NULL || top == JsonToken.END_DOCUMENT) {
+            return result;
+        }
+        if (top != JsonToken.BEGIN_ARRAY) {
+            throw new JsonParseException("Expected a JSON array of gates but found " + top);
+        }
+
+        reader.beginArray();
+        int index = 0;
+        while (reader.hasNext()) {
+            // Only this one entry is materialized
+            accept(JsonParser.parseReader(reader), index, sink, result);
+            index++;
+        }
+        reader.endArray();
+
+        return result;
+    }
+
+    /**
+     * Reads newline-delimited JSON (one gate object per line) and passes every valid gate to {@code sink}.
+     * Blank lines are ignored; entries are numbered by line.
+     *
+     * @param source the NDJSON text; not closed
+     * @param sink   receives each valid gate, in file order
+     * @return counts and rejected entries (unparsable lines are kept as JSON strings)
+     * @throws IOException if the source cannot be read
+     */
+    static Result readLines(BufferedReader source, Consumer<GateObject> sink) throws IOException {
+        Result result = new Result();
+
+        String line;
+        int lineNumber = 0;
+        while ((line = source.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            JsonElement entry;
+            try {
+                entry = JsonParser.parseString(line);
+            } catch (JsonParseException e) {
+                LOGGER.warn("[GateJsonReader] Line {} is not valid JSON: {}", lineNumber, e.getMessage());
+                result.rejected.add(new JsonPrimitive(line));
+                continue;
+            }
+            accept(entry, lineNumber, sink, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Converts and validates one entry, then hands it to {@code sink} or records it as rejected.
+     */
+    private static void accept(JsonElement entry, int index, Consumer<GateObject> sink, Result result) {
+        GateObject gate = toGate(entry, index);
+        if (gate != null && gate.Checker()) {
+            sink.accept(gate);
+            result.accepted++;
+        } else {
+            LOGGER.warn("[GateJsonReader] Skipping invalid gate entry #{}", index);
+            result.rejected.add(entry);
+        }
+    }
+
+    /**
+     * Converts one entry. Field names match {@link GateObject}'s fields, as written by Gson.
+     *
+     * @return the gate, or null if a field has the wrong shape
+     */
+    private static GateObject toGate(JsonElement entry, int index) {
+        if (!entry.isJsonObject()) {
+            return null;
+        }
+        JsonObject json = entry.getAsJsonObject();
+
+        try {
+            String name = json.has("name") && !json.get("name").isJsonNull() ? json.get("name").getAsString() : null;
+
+            GateObject gate = new GateObject(
+                    name,
+                    readDimension(json.get("dimension")),
+                    readBoolean(json, "isPublic"),
+                    readChevrons(json.get("chevrons")),
+                    readBoolean(json, "hasIris"),
+                    readBoolean(json, "isDefensive"),
+                    readUuids(json.get("whitelist")),
+                    readUuids(json.get("blacklist")),
+                    readBoolean(json, "isDefaultGate"),
+                    readUuid(json.get("creator")),
+                    readBoolean(json, "admin"));
+
+            // Missing in files written before gate ids; such gates are given one on load
+            JsonElement id = json.get("id");
+            if (id != null && !id.isJsonNull()) {
+                gate.setId(id.getAsLong());
+            }
+            return gate;
+        } catch (RuntimeException e) {
+            // Covers wrong JSON types, bad numbers, bad UUIDs and bad resource locations
+            LOGGER.warn("[GateJsonReader] Gate entry #{} is malformed: {}", index, e.toString());
+            return null;
+        }
+    }
+
+    private static boolean readBoolean(JsonObject json, String field) {
+        JsonElement value = json.get(field);
+        return value != null && !value.isJsonNull() && value.getAsBoolean();
+    }
+
+    private static ResourceKey<Level> readDimension(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+
+        if (value.isJsonPrimitive()) {
+            return GateInterner.dimension(value.getAsString());
+        }
+
+        // Gson's reflective form of ResourceKey, or a bare ResourceLocation object
+        JsonObject object = value.getAsJsonObject();
+        JsonObject loc = object.has("location") ? object.getAsJsonObject("location") : object;
+        return GateInterner.dimension(ResourceLocation.fromNamespaceAndPath(
+                loc.get("namespace").getAsString(), loc.get("path").getAsString()));
+    }
+
+    private static int[] readChevrons(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        JsonArray array = value.getAsJsonArray();
+        int[] chevrons = new int[array.size()];
+        for (int i = 0; i < chevrons.length; i++) {
+            chevrons[i] = array.get(i).getAsInt();
+        }
+        return chevrons;
+    }
+
+    private static UUID readUuid(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        return GateInterner.uuid(value.getAsString());
+    }
+
+    private static List<UUID> readUuids(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        JsonArray array = value.getAsJsonArray();
+        List<UUID> uuids = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            uuids.add(GateInterner.uuid(element.getAsString()));
+        }
+        return uuids;
+    }
+}
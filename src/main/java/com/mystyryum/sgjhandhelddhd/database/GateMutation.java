@@ -0,0 +1,112 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseChangedEvent.ChangeType;
+
+/**
+ * A single change to the gate table, as recorded in the Gatabase journal.
+ * <p>
+ * A mutation holds its own copy of the gate it was given, so assigning ids and creators
+ * while it is applied never changes the caller's object.
+ * <p>
+ * Types mirror {@link GataBase.GatabaseChangedEvent.ChangeType}:
+ * <ul>
+ *   <li>ADD    — {@code gate} is inserted under its id</li>
+ *   <li>UPDATE — the gate with id {@code targetId} is replaced by {@code gate}, which keeps that id</li>
+ *   <li>REMOVE — the gate with id {@code targetId} is removed</li>
+ * </ul>
+ * Applying a mutation is a plain put/remove by id, so replaying a journal
+ * suffix that the snapshot already contains leaves the table unchanged.
+ * <p>
+ * Journals written before gates had ids name their target instead ({@link #getLegacyTarget()});
+ * {@link GataBase} resolves those to ids while replaying.
+ */
+public class GateMutation {
+
+    /** The kind of change. */
+    private final ChangeType type;
+
+    /** Id of the gate being replaced or removed (0 for ADD). */
+    private final long targetId;
+
+    /** Name of the target; only set in journal entries written before gates had ids. */
+    private final String target;
+
+    /** The resulting gate (null for REMOVE). */
+    private final GateObject gate;
+
+    private GateMutation(ChangeType type, long targetId, String target, GateObject gate) {
+        if (gate != null) {
+            gate = gate.copy();
+            // Journal entries are written by Gson, which reads the list fields directly
+            gate.resolveLists();
+            if (type == ChangeType.UPDATE && targetId > 0) {
+                // An edit never changes which gate it is
+                gate.setId(targetId);
+            }
+        }
+        this.type = type;
+        this.targetId = targetId;
+        this.target = target;
+        this.gate = gate;
+    }
+
+    public static GateMutation add(GateObject gate) {
+        return new GateMutation(ChangeType.ADD, 0L, null, gate);
+    }
+
+    public static GateMutation update(long targetId, GateObject gate) {
+        return new GateMutation(ChangeType.UPDATE, targetId, null, gate);
+    }
+
+    public static GateMutation remove(long targetId) {
+        return new GateMutation(ChangeType.REMOVE, targetId, null, null);
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public long getTargetId() {
+        return targetId;
+    }
+
+    /**
+     * @return the target's name in a journal entry from before gate ids, otherwise null
+     */
+    public String getLegacyTarget() {
+        return targetId == 0 ? target : null;
+    }
+
+    public GateObject getGate() {
+        return gate;
+    }
+
+    /**
+     * @param id the id of the gate {@link #getLegacyTarget()} names
+     * @return the same change, addressed by id
+     */
+    GateMutation withTargetId(long id) {
+        return new GateMutation(type, id, null, gate);
+    }
+
+    /**
+     * Applies this mutation to the given table.
+     *
+     * @param table the working copy to modify
+     */
+    public void applyTo(GateTable.Builder table) {
+        switch (type) {
+            case ADD -> table.put(gate);
+            case UPDATE -> {
+                table.remove(targetId);
+                table.put(gate);
+            }
+            case REMOVE -> table.remove(targetId);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GateMutation{" + type + ", target=" + (targetId != 0 ? targetId : "'" + target + "'") + ", gate=" + gate + '}';
+    }
+}
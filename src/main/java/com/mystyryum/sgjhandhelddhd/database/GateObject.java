@@ -2,12 +2,11 @@ package com.mystyryum.sgjhandhelddhd.database;
 
 
 import com.mystyryum.sgjhandhelddhd.SGJHandheldDHD;
-import net.minecraft.core.registries.Registries;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.resources.ResourceKey;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.Level;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -18,6 +17,12 @@ import java.util.UUID;
      */
     public class GateObject {
 
+        /**
+         * Stable id assigned by the server when the gate is first stored; 0 until then.
+         * Identifies the gate in the table, the journal and packets, and survives renames.
+         */
+        private long id;
+
         /**
          * The gate's display name
          */
@@ -67,6 +72,35 @@ import java.util.UUID;
 
         private boolean admin;
 
+        /**
+         * Decodes the whitelist and blacklist of a gate loaded from a memory-mapped snapshot.
+         * Null once the lists are present. Transient, so Gson never sees it.
+         */
+        private transient volatile ListDecoder pendingLists;
+
+        /**
+         * Fills in the whitelist and blacklist of a lazily loaded gate.
+         */
+        @FunctionalInterface
+        interface ListDecoder {
+            void decodeInto(List<UUID> whitelist, List<UUID> blacklist);
+
+            /**
+             * Fills in the whitelist only. Decoders that can skip the blacklist override this.
+             */
+            default void decodeWhitelistInto(List<UUID> whitelist) {
+                decodeInto(whitelist, new ArrayList<>());
+            }
+
+            /**
+             * @return the lists still encoded as in a {@link GateBinaryCodec} record (whitelist size
+             *         and UUIDs, then blacklist size and UUIDs), or null if they are not at hand
+             */
+            default ByteBuffer encodedLists() {
+                return null;
+            }
+        }
+
         // --- Constructors ---
 
 
@@ -90,6 +124,17 @@ import java.util.UUID;
 
         // --- Getters and Setters ---
 
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Ids are assigned by {@link GataBase}; nothing outside the database sets them.
+         */
+        void setId(long id) {
+            this.id = id;
+        }
+
         public String getName() {
             return name;
         }
@@ -139,18 +184,22 @@ import java.util.UUID;
         }
 
         public List<UUID> getWhitelist() {
+            resolveLists();
             return whitelist;
         }
 
         public void setWhitelist(List<UUID> whitelist) {
+            resolveLists();
             this.whitelist = whitelist;
         }
 
         public List<UUID> getBlacklist() {
+            resolveLists();
             return blacklist;
         }
 
         public void setBlacklist(List<UUID> blacklist) {
+            resolveLists();
             this.blacklist = blacklist;
         }
 
@@ -180,10 +229,66 @@ import java.util.UUID;
 
         // --- Utility ---
 
+        /**
+         * Defers decoding of the whitelist and blacklist until one of them is first accessed.
+         *
+         * @param decoder fills both lists from the mapped snapshot
+         */
+        void deferLists(ListDecoder decoder) {
+            this.pendingLists = decoder;
+        }
+
+        /**
+         * @return the pending list decoder, or null if the lists are already present
+         */
+        ListDecoder deferredLists() {
+            return pendingLists;
+        }
+
+        /**
+         * Decodes deferred whitelist/blacklist data, if any. Called before anything reads the
+         * list fields directly (Gson, packet and string serialization, validation).
+         */
+        void resolveLists() {
+            if (pendingLists == null) {
+                return;
+            }
+            synchronized (this) {
+                ListDecoder decoder = pendingLists;
+                if (decoder != null) {
+                    List<UUID> decodedWhitelist = new ArrayList<>();
+                    List<UUID> decodedBlacklist = new ArrayList<>();
+                    decoder.decodeInto(decodedWhitelist, decodedBlacklist);
+                    whitelist = decodedWhitelist;
+                    blacklist = decodedBlacklist;
+                    pendingLists = null;
+                }
+            }
+        }
+
+        /**
+         * Creates an independent copy of this gate, id included. Lists that are still deferred
+         * stay deferred in the copy.
+         *
+         * @return the copy
+         */
+        public GateObject copy() {
+            ListDecoder decoder = pendingLists;
+            GateObject copy = new GateObject(name, dimension, isPublic, chevrons != null ? chevrons.clone() : null,
+                    hasIris, isDefensive,
+                    decoder == null && whitelist != null ? new ArrayList<>(whitelist) : null,
+                    decoder == null && blacklist != null ? new ArrayList<>(blacklist) : null,
+                    isDefaultGate, creator, admin);
+            copy.id = id;
+            copy.pendingLists = decoder;
+            return copy;
+        }
+
         @Override
         public String toString() {
             return "Gate{" +
-                    "name='" + name + '\'' +
+                    "id=" + id +
+                    ", name='" + name + '\'' +
                     ", dimension='" + dimension + '\'' +
                     ", isPublic=" + isPublic +
                     ", hasIris=" + hasIris +
@@ -195,7 +300,16 @@ import java.util.UUID;
         }
 
 
+        /**
+         * Writes the full, uncompressed gate: id, name, dimension, flags, chevrons, lists, creator.
+         * <p>
+         * This layout is part of the network protocol. Any change to it, such as adding the id,
+         * must bump {@link GateWireCodec#PROTOCOL_VERSION} in the same change, so that old
+         * clients are turned away at login instead of misreading packets.
+         */
         public void serialize(FriendlyByteBuf buf) {
+            resolveLists();
+            buf.writeLong(id);
             buf.writeUtf(name);
             buf.writeUtf(dimension.location().toString()); // serialize ResourceKey as string
             buf.writeBoolean(isPublic);
@@ -224,11 +338,10 @@ import java.util.UUID;
         }
 
         public static GateObject deserialize(FriendlyByteBuf buf) {
+            long id = buf.readLong();
             String name = buf.readUtf();
 
-            String dimIdString = buf.readUtf();
-            ResourceLocation dimLoc = ResourceLocation.parse(dimIdString);
-            ResourceKey<Level> dimension = ResourceKey.create(Registries.DIMENSION, dimLoc);
+            ResourceKey<Level> dimension = GateInterner.dimension(buf.readUtf());
 
             boolean isPublic = buf.readBoolean();
             int chevronLength = buf.readInt();
@@ -243,27 +356,30 @@ import java.util.UUID;
             int whitelistSize = buf.readInt();
             List<UUID> whitelist = new ArrayList<>();
             for (int i = 0; i < whitelistSize; i++) {
-                whitelist.add(buf.readUUID());
+                whitelist.add(GateInterner.uuid(buf.readUUID()));
             }
 
             int blacklistSize = buf.readInt();
             List<UUID> blacklist = new ArrayList<>();
             for (int i = 0; i < blacklistSize; i++) {
-                blacklist.add(buf.readUUID());
+                blacklist.add(GateInterner.uuid(buf.readUUID()));
             }
 
             boolean isDefaultGate = buf.readBoolean();
-            UUID creator = buf.readUUID();
+            UUID creator = GateInterner.uuid(buf.readUUID());
             boolean admin = buf.readBoolean();
 
-            return new GateObject(name, dimension, isPublic, chevrons, hasIris, isDefensive,
+            GateObject gate = new GateObject(name, dimension, isPublic, chevrons, hasIris, isDefensive,
                     whitelist, blacklist, isDefaultGate, creator, admin);
+            gate.id = id;
+            return gate;
 
         }
 
 
 
         public String serializeToString() {
+            resolveLists();
             List<String> whitelistTag = new ArrayList<>();
             for (UUID uuid : whitelist) {
                 whitelistTag.add(uuid.toString());
@@ -278,7 +394,7 @@ import java.util.UUID;
 
             return name + "|" + DimensionString + "|" + isPublic + "|" + Arrays.toString(chevrons) + "|" + hasIris + "|" + isDefensive + "|" +
                 Arrays.toString(whitelistTag.toArray()) + "|" + Arrays.toString(blacklistTag.toArray()) + "|" + isDefaultGate + "|" +
-                creator.toString() + "|" + admin;
+                creator.toString() + "|" + admin + "|" + id;
         }
 
         public GateObject GateObject (String buffer) {
@@ -289,7 +405,7 @@ import java.util.UUID;
 
             //dimension
             String DimensionString = parts[1];
-            ResourceKey<Level> dimension = ResourceKey.create(Registries.DIMENSION, ResourceLocation.parse(DimensionString));
+            ResourceKey<Level> dimension = GateInterner.dimension(DimensionString);
 
             boolean isPublic = Boolean.parseBoolean(parts[2]);
 
@@ -310,7 +426,7 @@ import java.util.UUID;
             List<UUID> whitelist = new ArrayList<>();
             if (!whitelistString.isEmpty()) {
                 for (String uuidstr : whitelistString.split(",")) {
-                    whitelist.add(UUID.fromString(uuidstr));
+                    whitelist.add(GateInterner.uuid(uuidstr));
                 }
             }
 
@@ -319,18 +435,23 @@ import java.util.UUID;
             List<UUID> blacklist = new ArrayList<>();
             if (!blacklistString.isEmpty()) {
                 for (String uuidstr : blacklistString.split(",")) {
-                    blacklist.add(UUID.fromString(uuidstr));
+                    blacklist.add(GateInterner.uuid(uuidstr));
                 }
             }
 
             //final basics
 
             boolean isDefault = Boolean.parseBoolean(parts[8]);
-            UUID creator = UUID.fromString(parts[9]);
+            UUID creator = GateInterner.uuid(parts[9]);
             boolean admin = Boolean.parseBoolean(parts[10]);
 
+            // Strings written before gates had ids end after the admin flag
+            long id = parts.length > 11 ? Long.parseLong(parts[11]) : 0L;
+
 
-            return new GateObject(name, dimension, isPublic, chevrons, hasIris, isDefensive, whitelist, blacklist, isDefault, creator, admin);
+            GateObject gate = new GateObject(name, dimension, isPublic, chevrons, hasIris, isDefensive, whitelist, blacklist, isDefault, creator, admin);
+            gate.id = id;
+            return gate;
 
 
         }
@@ -351,6 +472,7 @@ import java.util.UUID;
          * @return true if the GateObject is valid, false otherwise.
          */
         protected boolean Checker() {
+            resolveLists();
 
             // --- BASIC NULL SAFETY CHECKS ---
             if (this.name == null) {
@@ -27,23 +27,25 @@ public class GateObjectPacket implements CustomPacketPayload {
 
     // ---- ENCODER ----
     public static void encode(GateObjectPacket packet, FriendlyByteBuf buf) {
-        buf.writeInt(packet.gateObjects.size());
+        // Dimensions and players are sent once, see GateWireCodec
+        GateWireCodec codec = GateWireCodec.writeTables(buf, packet.gateObjects);
+        buf.writeVarInt(packet.gateObjects.size());
 
         // serialize each gate
         for (GateObject gate : packet.gateObjects) {
-            gate.serialize(buf);
+            codec.write(buf, gate);
         }
     }
 
     // ---- DECODER ----
     public static GateObjectPacket decode(FriendlyByteBuf buf) {
-        int size = buf.readInt();
+        GateWireCodec codec = GateWireCodec.readTables(buf);
+        int size = buf.readVarInt();
 
-        List<GateObject> gates = new ArrayList<>();
+        List<GateObject> gates = new ArrayList<>(Math.min(size, 1 << 12));
 
         for (int i = 0; i < size; i++) {
-            // IMPORTANT: This must be a *static* method
-            gates.add(GateObject.deserialize(buf));
+            gates.add(codec.read(buf));
         }
 
         return new GateObjectPacket(gates);
@@ -0,0 +1,72 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Persistence backend for the Gatabase's base snapshot.
+ * <p>
+ * {@link GataBase} keeps the live table in memory and journals every change itself; a store
+ * only loads the table at startup, saves it when the writer compacts the journal, and keeps
+ * its own backup. Each call gets the immutable {@link GateTable} to persist plus the dimensions
+ * changed since the previous call, so incremental backends can skip everything else.
+ * <p>
+ * Implementations:
+ * <ul>
+ *   <li>{@link SnapshotGateStore} ("single") - one {@code GataBase.json} snapshot, JSON or binary</li>
+ *   <li>{@link ShardStore} ("sharded") - one snapshot file per dimension plus a manifest</li>
+ *   <li>{@link MVStoreGateStore} ("mvstore") - an embedded H2 MVStore database, one record per gate</li>
+ * </ul>
+ * The active store is picked by {@link com.mystyryum.sgjhandhelddhd.Config#STORAGEBACKEND}.
+ */
+public interface GateStore {
+
+    /**
+     * @return the name used for this store in the config and in logs
+     */
+    String getName();
+
+    /**
+     * Used at startup to find the store holding the newest data, so switching backends
+     * carries the gates over.
+     *
+     * @return the time this store last saved data, in epoch milliseconds; 0 if it holds none
+     */
+    long lastSaved();
+
+    /**
+     * Loads every stored gate, falling back to this store's backup for damaged data.
+     *
+     * @param sink receives every gate
+     * @return true if the data was complete and undamaged; false makes the next save a full rewrite
+     */
+    boolean load(Consumer<GateObject> sink);
+
+    /**
+     * Persists a new base snapshot. A store that did not load its own data, or found it
+     * damaged, must write everything rather than just the changed dimensions.
+     *
+     * @param snapshot the table to persist
+     * @param changed  dimensions whose gates changed since the last successful save
+     * @throws IOException if the snapshot could not be persisted; the previous one stays valid
+     */
+    void save(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException;
+
+    /**
+     * Writes this store's backup of a snapshot.
+     *
+     * @param snapshot the table to back up
+     * @param changed  dimensions whose gates changed since the last successful backup
+     * @throws IOException if the backup could not be written
+     */
+    void backup(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException;
+
+    /**
+     * Releases files held open by the store. Called once on shutdown, after the final save.
+     */
+    default void close() {}
+}
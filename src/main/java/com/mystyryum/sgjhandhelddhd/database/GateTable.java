@@ -0,0 +1,616 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable, versioned snapshot of every gate known to the Gatabase.
+ * <p>
+ * {@link GataBase} publishes the current snapshot behind a volatile reference. Readers
+ * (login sync, dial lookups, backups) read that reference once and get a consistent
+ * view without taking any lock. Writers start a {@link Builder} from the snapshot,
+ * apply their changes and publish the result as the next version.
+ * <p>
+ * Gates are keyed by their id ({@link GateObject#getId()}). Besides the primary id map the
+ * table maintains secondary indexes, so lookups never scan the whole table:
+ * <ul>
+ *   <li>exact name → gate (name-based API and commands)</li>
+ *   <li>case-folded name → gate (uniqueness check)</li>
+ *   <li>packed chevron address ({@link GateAddress}) → gate, in a primitive {@link AddressMap}
+ *       (uniqueness check, dial validation)</li>
+ *   <li>creator UUID → gates (per-player gate lists, login sync)</li>
+ *   <li>whitelisted player UUID → gates, and the public gates (login sync)</li>
+ *   <li>dimension → gates, plus the set of dimensions that own a default gate</li>
+ * </ul>
+ * Indexes are updated inside {@link Builder#put} and {@link Builder#remove}, so they always match the table.
+ * Every index, including the per-creator and per-dimension groups, is a {@link PersistentMap}:
+ * a builder shares all of them with its base snapshot and a change only copies the few trie
+ * nodes on its own path, so an edit costs the same in a table of ten gates or a hundred thousand.
+ * <p>
+ * Gates are stored as {@link CompactGate}s. Every {@link GateObject} handed out is a new copy
+ * built on demand, so changing it never changes the table.
+ */
+public final class GateTable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GateTable.class);
+
+    /** The table every database starts from. */
+    public static final GateTable EMPTY = new Builder(null).build(0L);
+
+    /** Incremented by one for every published change. */
+    private final long version;
+
+    /** All gates keyed by id; iterates in the same order for the same gates, so saves stay stable. */
+    private final PersistentMap<Long, CompactGate> gates;
+
+    /** Exact name index. */
+    private final PersistentMap<String, CompactGate> byName;
+
+    /** Case-folded name index. */
+    private final PersistentMap<String, CompactGate> byFoldedName;
+
+    /** Packed address index. */
+    private final AddressMap<CompactGate> byAddress;
+
+    /** Gates whose chevrons cannot be packed (malformed legacy data), by id; checked linearly. */
+    private final PersistentMap<Long, CompactGate> unpackedAddresses;
+
+    /** Creator index; each creator's gates keyed by id. */
+    private final PersistentMap<UUID, PersistentMap<Long, CompactGate>> byCreator;
+
+    /** Whitelist index; for each player, the gates whitelisting them keyed by id. */
+    private final PersistentMap<UUID, PersistentMap<Long, CompactGate>> byWhitelisted;
+
+    /** Public gates by id. */
+    private final PersistentMap<Long, CompactGate> publicGates;
+
+    /** Dimension index; each dimension's gates keyed by id. */
+    private final PersistentMap<ResourceKey<Level>, PersistentMap<Long, CompactGate>> byDimension;
+
+    /** Number of (non-admin) default gates per dimension. */
+    private final PersistentMap<ResourceKey<Level>, Integer> defaultGateCounts;
+
+    /** Immutable copy of the dimensions that own a default gate. */
+    private final Set<ResourceKey<Level>> defaultDimensions;
+
+    /** Highest id ever stored in this table or the tables it was built from. */
+    private final long highestId;
+
+    private GateTable(Builder builder, long version) {
+        this.version = version;
+        this.highestId = builder.highestId;
+        this.gates = builder.gates;
+        this.byName = builder.byName;
+        this.byFoldedName = builder.byFoldedName;
+        this.byAddress = builder.byAddress;
+        this.unpackedAddresses = builder.unpackedAddresses;
+        this.byCreator = builder.byCreator;
+        this.byWhitelisted = builder.byWhitelisted;
+        this.publicGates = builder.publicGates;
+        this.byDimension = builder.byDimension;
+        this.defaultGateCounts = builder.defaultGateCounts;
+        this.defaultDimensions = builder.base == null || builder.defaultDimensionsChanged
+                ? keySet(builder.defaultGateCounts)
+                : builder.base.defaultDimensions;
+    }
+
+    /**
+     * @return a builder starting from this table; creating it copies nothing
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * @return the version of this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the highest gate id this table has held, 0 if none
+     */
+    public long getHighestId() {
+        return highestId;
+    }
+
+    /**
+     * @param id the gate id
+     * @return a copy of the stored gate, or null if none exists
+     */
+    public GateObject get(long id) {
+        return view(gates.get(id));
+    }
+
+    /**
+     * @param id the gate id
+     * @return the stored compact gate itself, or null; for readers inside this package
+     */
+    CompactGate getCompact(long id) {
+        return gates.get(id);
+    }
+
+    /**
+     * @param id the gate id
+     * @return whether a gate with that id exists
+     */
+    public boolean contains(long id) {
+        return gates.containsKey(id);
+    }
+
+    /**
+     * @param name the exact gate name
+     * @return a copy of the stored gate, or null if none exists
+     */
+    public GateObject get(String name) {
+        return view(byName.get(name));
+    }
+
+    /**
+     * @param name the exact gate name
+     * @return whether a gate with that name exists
+     */
+    public boolean contains(String name) {
+        return byName.containsKey(name);
+    }
+
+    /**
+     * Checks a gate against the name and address indexes.
+     *
+     * @param candidate the gate to check
+     * @param ignored   a gate to leave out of the check (the gate being edited); may be null
+     * @return 0 if unique, 1 if the name is taken, 2 if the address is taken, 3 if both
+     */
+    public int conflicts(GateObject candidate, GateObject ignored) {
+        return conflicts(candidate, ignored, byFoldedName, byAddress, unpackedAddresses);
+    }
+
+    /**
+     * Finds the gate dialled by a packed address.
+     *
+     * @param address a packed {@link GateAddress}
+     * @return the gate with that address, or null
+     */
+    public GateObject getByAddress(long address) {
+        return view(byAddress.get(address));
+    }
+
+    /**
+     * Returns the gates created by one player. Cost is proportional to that player's gate count.
+     *
+     * @param creator the creator UUID
+     * @return a new list of that player's gates; empty if they have none
+     */
+    public List<GateObject> getByCreator(UUID creator) {
+        return views(byCreator.get(creator));
+    }
+
+    /**
+     * Returns the gates a player may see: their own, those whitelisting them and all public
+     * gates. Cost is proportional to the number of gates returned, not to the table size.
+     *
+     * @param player the player
+     * @return a new list of those gates, each once
+     */
+    List<GateObject> getVisibleTo(UUID player) {
+        List<GateObject> result = views(publicGates);
+        PersistentMap<Long, CompactGate> own = byCreator.get(player);
+        if (own != null) {
+            for (CompactGate gate : own.values()) {
+                if (!gate.isPublic()) {
+                    result.add(gate.toGateObject());
+                }
+            }
+        }
+        PersistentMap<Long, CompactGate> whitelisted = byWhitelisted.get(player);
+        if (whitelisted != null) {
+            for (CompactGate gate : whitelisted.values()) {
+                // Public gates and the player's own gates are already in
+                if (!gate.isPublic() && !player.equals(gate.getCreator())) {
+                    result.add(gate.toGateObject());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the gates placed in one dimension.
+     *
+     * @param dimension the dimension key
+     * @return a new list of the gates in that dimension; empty if there are none
+     */
+    public List<GateObject> getByDimension(ResourceKey<Level> dimension) {
+        return views(byDimension.get(dimension));
+    }
+
+    /**
+     * Returns every dimension that holds at least one gate. Gates without a dimension
+     * show up as a null entry.
+     *
+     * @return a new set of dimension keys
+     */
+    public Set<ResourceKey<Level>> getDimensions() {
+        Set<ResourceKey<Level>> dimensions = new HashSet<>();
+        for (ResourceKey<Level> dimension : byDimension.keys()) {
+            dimensions.add(dimension);
+        }
+        return dimensions;
+    }
+
+    /**
+     * @return an immutable set of the dimensions that own a default gate in this snapshot
+     */
+    public Set<ResourceKey<Level>> getDefaultDimensions() {
+        return defaultDimensions;
+    }
+
+    /**
+     * @return number of gates in this snapshot
+     */
+    public int size() {
+        return gates.size();
+    }
+
+    /**
+     * Returns a copy of all gates. The caller may freely modify the returned list.
+     *
+     * @return a new list containing every stored gate
+     */
+    public List<GateObject> values() {
+        return views(gates);
+    }
+
+    /**
+     * Working copy of a {@link GateTable}.
+     * <p>
+     * Starts out sharing every index with its base snapshot; each change replaces an index by
+     * a new {@link PersistentMap} version that shares all untouched nodes, so the base is never
+     * modified. A builder belongs to one writer and is discarded once {@link #build} has been called.
+     */
+    public static final class Builder {
+
+        private final GateTable base;
+        private PersistentMap<Long, CompactGate> gates;
+        private PersistentMap<String, CompactGate> byName;
+        private PersistentMap<String, CompactGate> byFoldedName;
+        private AddressMap<CompactGate> byAddress;
+        private PersistentMap<Long, CompactGate> unpackedAddresses;
+        private PersistentMap<UUID, PersistentMap<Long, CompactGate>> byCreator;
+        private PersistentMap<UUID, PersistentMap<Long, CompactGate>> byWhitelisted;
+        private PersistentMap<Long, CompactGate> publicGates;
+        private PersistentMap<ResourceKey<Level>, PersistentMap<Long, CompactGate>> byDimension;
+        private PersistentMap<ResourceKey<Level>, Integer> defaultGateCounts;
+
+        /** Ids this builder put or removed, in order of first change. */
+        private final Set<Long> touched = new LinkedHashSet<>();
+
+        private long highestId;
+        private boolean defaultDimensionsChanged = false;
+        private boolean built = false;
+
+        private Builder(GateTable base) {
+            this.base = base;
+            if (base == null) {
+                gates = PersistentMap.empty();
+                byName = PersistentMap.empty();
+                byFoldedName = PersistentMap.empty();
+                byAddress = AddressMap.empty();
+                unpackedAddresses = PersistentMap.empty();
+                byCreator = PersistentMap.empty();
+                byWhitelisted = PersistentMap.empty();
+                publicGates = PersistentMap.empty();
+                byDimension = PersistentMap.empty();
+                defaultGateCounts = PersistentMap.empty();
+            } else {
+                gates = base.gates;
+                byName = base.byName;
+                byFoldedName = base.byFoldedName;
+                byAddress = base.byAddress;
+                unpackedAddresses = base.unpackedAddresses;
+                byCreator = base.byCreator;
+                byWhitelisted = base.byWhitelisted;
+                publicGates = base.publicGates;
+                byDimension = base.byDimension;
+                defaultGateCounts = base.defaultGateCounts;
+                highestId = base.highestId;
+            }
+        }
+
+        /**
+         * Inserts or replaces a gate, keyed by its id. The table keeps a compact copy,
+         * so later changes to {@code gate} have no effect on it.
+         *
+         * @param gate the gate to store
+         * @throws IllegalArgumentException if the gate has not been assigned an id
+         */
+        public void put(GateObject gate) {
+            checkOpen();
+            if (gate.getId() <= 0) {
+                throw new IllegalArgumentException("Gate '" + gate.getName() + "' has no id");
+            }
+            CompactGate compact = CompactGate.of(gate);
+            highestId = Math.max(highestId, compact.getId());
+            CompactGate previous = gates.get(compact.getId());
+            gates = gates.with(compact.getId(), compact);
+            touched.add(compact.getId());
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(compact);
+        }
+
+        /**
+         * Removes the gate with the given id.
+         *
+         * @param id the gate id
+         * @return a copy of the removed gate, or null if none was stored
+         */
+        public GateObject remove(long id) {
+            checkOpen();
+            CompactGate removed = gates.get(id);
+            if (removed != null) {
+                gates = gates.without(id);
+                touched.add(id);
+                unindex(removed);
+            }
+            return view(removed);
+        }
+
+        /**
+         * @param id the gate id
+         * @return a copy of the gate currently held by this builder, or null
+         */
+        public GateObject get(long id) {
+            return view(gates.get(id));
+        }
+
+        /**
+         * @param name the exact gate name
+         * @return a copy of the gate currently held by this builder, or null
+         */
+        public GateObject get(String name) {
+            return view(byName.get(name));
+        }
+
+        /**
+         * Same as {@link GateTable#conflicts}, against this builder's current content.
+         */
+        public int conflicts(GateObject candidate, GateObject ignored) {
+            return GateTable.conflicts(candidate, ignored, byFoldedName, byAddress, unpackedAddresses);
+        }
+
+        /**
+         * @return a copy of the gates currently held by this builder
+         */
+        public List<GateObject> values() {
+            return views(gates);
+        }
+
+        /**
+         * @return the highest gate id this builder has held
+         */
+        public long getHighestId() {
+            return highestId;
+        }
+
+        /**
+         * @return number of gates currently held by this builder
+         */
+        public int size() {
+            return gates.size();
+        }
+
+        /**
+         * @return ids of the gates this builder added, replaced or removed
+         */
+        Set<Long> getTouchedIds() {
+            return touched;
+        }
+
+        /**
+         * Freezes the builder into a new snapshot. The builder cannot be used afterwards.
+         *
+         * @param version the version of the new snapshot
+         * @return the new table
+         */
+        public GateTable build(long version) {
+            checkOpen();
+            built = true;
+            return new GateTable(this, version);
+        }
+
+        // === Index maintenance ===
+
+        private void index(CompactGate gate) {
+            byCreator = withMember(byCreator, gate.getCreator(), gate);
+            byDimension = withMember(byDimension, gate.getDimension(), gate);
+            if (gate.isPublic()) {
+                publicGates = publicGates.with(gate.getId(), gate);
+            }
+            for (UUID player : gate.getWhitelist()) {
+                byWhitelisted = withMember(byWhitelisted, player, gate);
+            }
+
+            if (countsAsDefault(gate)) {
+                int before = defaultGateCounts.get(gate.getDimension()) != null ? defaultGateCounts.get(gate.getDimension()) : 0;
+                defaultGateCounts = defaultGateCounts.with(gate.getDimension(), before + 1);
+                defaultDimensionsChanged |= before == 0;
+            }
+
+            CompactGate clash = byName.get(gate.getName());
+            byName = byName.with(gate.getName(), gate);
+            if (clash != null && clash != gate) {
+                LOGGER.warn("[GateTable] Gates {} and {} are both named '{}'; name index keeps the latter.",
+                        clash.getId(), gate.getId(), gate.getName());
+            }
+
+            String folded = fold(gate.getName());
+            clash = byFoldedName.get(folded);
+            byFoldedName = byFoldedName.with(folded, gate);
+            if (clash != null && clash != gate) {
+                LOGGER.warn("[GateTable] Gates '{}' and '{}' share a name; uniqueness index keeps the latter.",
+                        clash.getName(), gate.getName());
+            }
+
+            long address = gate.getAddress();
+            if (address == GateAddress.INVALID) {
+                unpackedAddresses = unpackedAddresses.with(gate.getId(), gate);
+                return;
+            }
+
+            clash = byAddress.get(address);
+            byAddress = byAddress.with(address, gate);
+            if (clash != null && clash != gate) {
+                LOGGER.warn("[GateTable] Gates '{}' and '{}' share an address; uniqueness index keeps the latter.",
+                        clash.getName(), gate.getName());
+            }
+        }
+
+        private void unindex(CompactGate gate) {
+            byCreator = withoutMember(byCreator, gate.getCreator(), gate);
+            byDimension = withoutMember(byDimension, gate.getDimension(), gate);
+            if (gate.isPublic()) {
+                publicGates = publicGates.without(gate.getId(), gate);
+            }
+            for (UUID player : gate.getWhitelist()) {
+                byWhitelisted = withoutMember(byWhitelisted, player, gate);
+            }
+
+            if (countsAsDefault(gate)) {
+                Integer count = defaultGateCounts.get(gate.getDimension());
+                if (count != null && count > 1) {
+                    defaultGateCounts = defaultGateCounts.with(gate.getDimension(), count - 1);
+                } else if (count != null) {
+                    defaultGateCounts = defaultGateCounts.without(gate.getDimension());
+                    defaultDimensionsChanged = true;
+                }
+            }
+
+            byName = byName.without(gate.getName(), gate);
+            byFoldedName = byFoldedName.without(fold(gate.getName()), gate);
+
+            long address = gate.getAddress();
+            if (address == GateAddress.INVALID) {
+                unpackedAddresses = unpackedAddresses.without(gate.getId(), gate);
+            } else {
+                byAddress = byAddress.without(address, gate);
+            }
+        }
+
+        private void checkOpen() {
+            if (built) {
+                throw new IllegalStateException("GateTable.Builder has already been built");
+            }
+        }
+    }
+
+    // === Shared helpers ===
+
+    private static int conflicts(GateObject candidate, GateObject ignored,
+                                 PersistentMap<String, CompactGate> byFoldedName,
+                                 AddressMap<CompactGate> byAddress,
+                                 PersistentMap<Long, CompactGate> unpackedAddresses) {
+        int conflict = 0;
+
+        CompactGate sameName = byFoldedName.get(fold(candidate.getName()));
+        if (sameName != null && !isIgnored(sameName, ignored)) {
+            conflict += 1;
+        }
+
+        long address = GateAddress.pack(candidate.getChevrons());
+        if (address != GateAddress.INVALID) {
+            CompactGate sameAddress = byAddress.get(address);
+            if (sameAddress != null && !isIgnored(sameAddress, ignored)) {
+                conflict += 2;
+            }
+        } else {
+            for (CompactGate gate : unpackedAddresses.values()) {
+                if (!isIgnored(gate, ignored) && Arrays.equals(gate.getChevrons(), candidate.getChevrons())) {
+                    conflict += 2;
+                    break;
+                }
+            }
+        }
+
+        return conflict;
+    }
+
+    /**
+     * Admin-made gates are system-level and never count as a dimension's default gate.
+     */
+    private static boolean countsAsDefault(CompactGate gate) {
+        return gate.isDefaultGate() && !gate.isAdmin() && gate.getDimension() != null;
+    }
+
+    /**
+     * Matches by id; gates that have none yet (not stored so far) match by name.
+     */
+    private static boolean isIgnored(CompactGate gate, GateObject ignored) {
+        if (ignored == null) {
+            return false;
+        }
+        return ignored.getId() > 0 ? gate.getId() == ignored.getId() : gate.getName().equals(ignored.getName());
+    }
+
+    private static GateObject view(CompactGate gate) {
+        return gate != null ? gate.toGateObject() : null;
+    }
+
+    private static List<GateObject> views(PersistentMap<Long, CompactGate> stored) {
+        if (stored == null) {
+            return new ArrayList<>();
+        }
+        List<GateObject> result = new ArrayList<>(stored.size());
+        for (CompactGate gate : stored.values()) {
+            result.add(gate.toGateObject());
+        }
+        return result;
+    }
+
+    /**
+     * Adds a gate to its group in a grouped index (creator → gates, dimension → gates).
+     */
+    private static <K> PersistentMap<K, PersistentMap<Long, CompactGate>> withMember(
+            PersistentMap<K, PersistentMap<Long, CompactGate>> index, K key, CompactGate gate) {
+        return index.update(key, group -> (group != null ? group : PersistentMap.<Long, CompactGate>empty()).with(gate.getId(), gate));
+    }
+
+    /**
+     * Removes a gate from its group in a grouped index, dropping the group once it is empty.
+     */
+    private static <K> PersistentMap<K, PersistentMap<Long, CompactGate>> withoutMember(
+            PersistentMap<K, PersistentMap<Long, CompactGate>> index, K key, CompactGate gate) {
+        return index.update(key, group -> {
+            if (group == null) {
+                return null;
+            }
+            PersistentMap<Long, CompactGate> next = group.without(gate.getId(), gate);
+            return next.isEmpty() ? null : next;
+        });
+    }
+
+    private static <K> Set<K> keySet(PersistentMap<K, ?> map) {
+        Set<K> keys = new HashSet<>();
+        for (K key : map.keys()) {
+            keys.add(key);
+        }
+        return Set.copyOf(keys);
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,91 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Several gate changes that are committed together or not at all.
+ * <pre>
+ *   GateTransaction.Result result = new GateTransaction(player)
+ *           .edit(gateA, gateAWithAddressOfB)
+ *           .edit(gateB, gateBWithAddressOfA)
+ *           .commit();
+ * </pre>
+ * Operations see the effect of the ones before them, so a gate can be renamed and its old
+ * name reused, or two addresses swapped. Name and address uniqueness is checked on the
+ * final state only; permissions (creator or admin, as for {@link GataBase#editGate}) are
+ * checked per operation. A committed transaction is one table version, one journal entry
+ * and one {@link GataBase.GatabaseBatchChangedEvent}.
+ */
+public class GateTransaction {
+
+    /**
+     * Outcome of {@link #commit()}.
+     *
+     * @param committed whether every operation was applied; if false, nothing was
+     * @param problems  why the transaction was refused; empty if committed
+     * @param durable   completes once the committed changes are on disk
+     */
+    public record Result(boolean committed, List<String> problems, CompletableFuture<Void> durable) {}
+
+    /** The player making the changes; new gates are assigned to them. */
+    private final UUID player;
+
+    private final List<GateMutation> operations = new ArrayList<>();
+
+    /**
+     * @param player the player making the changes; if null, defaults to {@link GataBase#ADMIN_UUID}
+     */
+    public GateTransaction(UUID player) {
+        this.player = player != null ? player : GataBase.ADMIN_UUID;
+    }
+
+    /**
+     * Adds a new gate, created by this transaction's player. The transaction works on a copy,
+     * so {@code gate} itself is never given a creator or id.
+     */
+    public GateTransaction add(GateObject gate) {
+        operations.add(GateMutation.add(gate));
+        return this;
+    }
+
+    /**
+     * Replaces a stored gate. {@code target} is looked up by id, after the earlier operations;
+     * the replacement keeps that id.
+     */
+    public GateTransaction edit(GateObject target, GateObject updatedTarget) {
+        operations.add(GateMutation.update(target.getId(), updatedTarget));
+        return this;
+    }
+
+    /**
+     * Removes a stored gate. {@code target} is looked up by id, after the earlier operations.
+     */
+    public GateTransaction remove(GateObject target) {
+        operations.add(GateMutation.remove(target.getId()));
+        return this;
+    }
+
+    /**
+     * Applies every operation atomically. See {@link GataBase#commit(GateTransaction)}.
+     *
+     * @return the outcome
+     */
+    public Result commit() {
+        return GataBase.commit(this);
+    }
+
+    public UUID getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return the operations in the order they were added
+     */
+    public List<GateMutation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+}
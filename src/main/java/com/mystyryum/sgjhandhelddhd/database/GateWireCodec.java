@@ -0,0 +1,282 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Compact network encoding of the gates in one packet.
+ * <p>
+ * Layout:
+ * <pre>
+ *   VarInt dimension count, then that many UTF dimension ids
+ *   VarInt player count, then that many UUIDs (creators and list entries)
+ *   then, per gate, written by {@link #write}:
+ *     VarLong id
+ *     byte    flags (same bits as {@link GateBinaryCodec})
+ *     long    packed address ({@link GateAddress}), or for RAW_ADDRESS: VarInt count + that many VarInts
+ *     VarInt  dimension index + 1, 0 if none
+ *     VarInt  creator index               (absent with NO_CREATOR)
+ *     UTF     name
+ *     VarInt  whitelist size, then that many player indices
+ *     VarInt  blacklist size, then that many player indices
+ * </pre>
+ * {@link GateObject#serialize} spends about a hundred bytes per gate on the dimension
+ * string, a four-byte int per chevron, separate booleans and full UUIDs. Here each dimension
+ * and player is sent once per packet, and a typical gate costs about twenty bytes plus its name.
+ * <p>
+ * Clients and servers only talk if both use {@link #PROTOCOL_VERSION}, which the payload
+ * registrar checks when a player connects.
+ */
+public final class GateWireCodec {
+
+    /**
+     * Network protocol version of the mod's packets. Bump it whenever the encoding of any packet
+     * changes, including {@link GateObject#serialize} and this codec.
+     * <ul>
+     *   <li>1 — gates written by {@link GateObject#serialize}, without ids</li>
+     *   <li>2 — gates carry their id; gate lists are sent as {@link GateDelta}s with this codec</li>
+     *   <li>3 — gate deltas are sent in pages, each led by a first/last page flags byte</li>
+     * </ul>
+     */
+    public static final String PROTOCOL_VERSION = "3";
+
+    private final Map<ResourceKey<Level>, Integer> dimensionIndex;
+    private final Map<UUID, Integer> playerIndex;
+    private final List<ResourceKey<Level>> dimensions;
+    private final List<UUID> players;
+
+    private GateWireCodec(Map<ResourceKey<Level>, Integer> dimensionIndex, Map<UUID, Integer> playerIndex,
+                          List<ResourceKey<Level>> dimensions, List<UUID> players) {
+        this.dimensionIndex = dimensionIndex;
+        this.playerIndex = playerIndex;
+        this.dimensions = dimensions;
+        this.players = players;
+    }
+
+    /**
+     * Writes the dimension and player tables for a packet.
+     *
+     * @param buf   the packet buffer
+     * @param gates every gate the packet will contain
+     * @return the codec to write those gates with
+     */
+    public static GateWireCodec writeTables(FriendlyByteBuf buf, Collection<GateObject> gates) {
+        Map<ResourceKey<Level>, Integer> dimensionIndex = new LinkedHashMap<>();
+        Map<UUID, Integer> playerIndex = new LinkedHashMap<>();
+        for (GateObject gate : gates) {
+            if (gate.getDimension() != null) {
+                dimensionIndex.putIfAbsent(gate.getDimension(), dimensionIndex.size());
+            }
+            if (gate.getCreator() != null) {
+                playerIndex.putIfAbsent(gate.getCreator(), playerIndex.size());
+            }
+            for (UUID player : listOf(gate.getWhitelist())) {
+                playerIndex.putIfAbsent(player, playerIndex.size());
+            }
+            for (UUID player : listOf(gate.getBlacklist())) {
+                playerIndex.putIfAbsent(player, playerIndex.size());
+            }
+        }
+
+        buf.writeVarInt(dimensionIndex.size());
+        for (ResourceKey<Level> dimension : dimensionIndex.keySet()) {
+            buf.writeUtf(dimension.location().toString());
+        }
+        buf.writeVarInt(playerIndex.size());
+        for (UUID player : playerIndex.keySet()) {
+            buf.writeUUID(player);
+        }
+        return new GateWireCodec(dimensionIndex, playerIndex, null, null);
+    }
+
+    /**
+     * Reads the tables written by {@link #writeTables}.
+     *
+     * @param buf the packet buffer
+     * @return the codec to read the packet's gates with
+     */
+    public static GateWireCodec readTables(FriendlyByteBuf buf) {
+        int dimensionCount = readCount(buf);
+        List<ResourceKey<Level>> dimensions = new ArrayList<>(dimensionCount);
+        for (int i = 0; i < dimensionCount; i++) {
+            dimensions.add(GateInterner.dimension(buf.readUtf()));
+        }
+        int playerCount = readCount(buf);
+        List<UUID> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            players.add(GateInterner.uuid(buf.readUUID()));
+        }
+        return new GateWireCodec(null, null, dimensions, players);
+    }
+
+    /**
+     * Writes one gate. The gate must have been passed to {@link #writeTables}.
+     */
+    public void write(FriendlyByteBuf buf, GateObject gate) {
+        long address = GateAddress.pack(gate.getChevrons());
+
+        int flags = 0;
+        if (gate.isPublic()) flags |= GateBinaryCodec.FLAG_PUBLIC;
+        if (gate.hasIris()) flags |= GateBinaryCodec.FLAG_IRIS;
+        if (gate.isDefensive()) flags |= GateBinaryCodec.FLAG_DEFENSIVE;
+        if (gate.isDefaultGate()) flags |= GateBinaryCodec.FLAG_DEFAULT;
+        if (gate.getAdmin()) flags |= GateBinaryCodec.FLAG_ADMIN;
+        if (address == GateAddress.INVALID) flags |= GateBinaryCodec.FLAG_RAW_ADDRESS;
+        if (gate.getCreator() == null) flags |= GateBinaryCodec.FLAG_NO_CREATOR;
+
+        buf.writeVarLong(gate.getId());
+        buf.writeByte(flags);
+
+        if (address != GateAddress.INVALID) {
+            buf.writeLong(address);
+        } else {
+            int[] chevrons = gate.getChevrons() != null ? gate.getChevrons() : new int[0];
+            buf.writeVarInt(chevrons.length);
+            for (int chevron : chevrons) {
+                buf.writeVarInt(chevron);
+            }
+        }
+
+        buf.writeVarInt(gate.getDimension() != null ? dimensionIndex.get(gate.getDimension()) + 1 : 0);
+        if (gate.getCreator() != null) {
+            buf.writeVarInt(playerIndex.get(gate.getCreator()));
+        }
+        buf.writeUtf(gate.getName());
+        writePlayers(buf, gate.getWhitelist());
+        writePlayers(buf, gate.getBlacklist());
+    }
+
+    /**
+     * Reads one gate written by {@link #write}.
+     *
+     * @throws DecoderException if the gate refers outside the packet's tables
+     */
+    public GateObject read(FriendlyByteBuf buf) {
+        long id = buf.readVarLong();
+        int flags = buf.readUnsignedByte();
+
+        int[] chevrons;
+        if ((flags & GateBinaryCodec.FLAG_RAW_ADDRESS) == 0) {
+            chevrons = GateAddress.unpack(buf.readLong());
+        } else {
+            chevrons = new int[readCount(buf)];
+            for (int i = 0; i < chevrons.length; i++) {
+                chevrons[i] = buf.readVarInt();
+            }
+        }
+
+        int dimension = buf.readVarInt();
+        UUID creator = (flags & GateBinaryCodec.FLAG_NO_CREATOR) == 0 ? lookup(players, buf.readVarInt()) : null;
+        String name = buf.readUtf();
+        List<UUID> whitelist = readPlayers(buf);
+        List<UUID> blacklist = readPlayers(buf);
+
+        GateObject gate = new GateObject(name, dimension > 0 ? lookup(dimensions, dimension - 1) : null,
+                (flags & GateBinaryCodec.FLAG_PUBLIC) != 0, chevrons,
+                (flags & GateBinaryCodec.FLAG_IRIS) != 0, (flags & GateBinaryCodec.FLAG_DEFENSIVE) != 0,
+                whitelist, blacklist,
+                (flags & GateBinaryCodec.FLAG_DEFAULT) != 0, creator, (flags & GateBinaryCodec.FLAG_ADMIN) != 0);
+        gate.setId(id);
+        return gate;
+    }
+
+    /**
+     * Upper bound of the bytes {@link #write} and the tables spend on one more gate in a packet.
+     * Table entries are only counted for dimensions and players not already in the packet; a
+     * player named twice by the gate itself is counted twice, which keeps the bound safe.
+     *
+     * @param gate       the gate
+     * @param dimensions dimensions already in the packet; not modified
+     * @param players    players already in the packet; not modified
+     * @return the most bytes the gate can add to the packet
+     */
+    static int estimateSize(GateObject gate, Set<ResourceKey<Level>> dimensions, Set<UUID> players) {
+        int chevrons = gate.getChevrons() != null ? gate.getChevrons().length : 0;
+        int name = gate.getName() != null ? 3 * gate.getName().length() : 0;
+        // VarLong id, flags, address, dimension index, creator index, name length, two list sizes
+        int size = 10 + 1 + Math.max(8, 5 + 5 * chevrons) + 5 + 5 + 5 + name + 5 + 5;
+
+        if (gate.getDimension() != null && !dimensions.contains(gate.getDimension())) {
+            size += 5 + 3 * gate.getDimension().location().toString().length();
+        }
+        if (gate.getCreator() != null && !players.contains(gate.getCreator())) {
+            size += 16;
+        }
+        for (UUID player : listOf(gate.getWhitelist())) {
+            size += players.contains(player) ? 5 : 16 + 5;
+        }
+        for (UUID player : listOf(gate.getBlacklist())) {
+            size += players.contains(player) ? 5 : 16 + 5;
+        }
+        return size;
+    }
+
+    /**
+     * Records the table entries a gate adds to a packet, once it is known to go into it.
+     *
+     * @param gate       the gate
+     * @param dimensions dimensions in the packet; updated
+     * @param players    players in the packet; updated
+     */
+    static void addTableEntries(GateObject gate, Set<ResourceKey<Level>> dimensions, Set<UUID> players) {
+        if (gate.getDimension() != null) {
+            dimensions.add(gate.getDimension());
+        }
+        if (gate.getCreator() != null) {
+            players.add(gate.getCreator());
+        }
+        players.addAll(listOf(gate.getWhitelist()));
+        players.addAll(listOf(gate.getBlacklist()));
+    }
+
+    // === Helpers ===
+
+    private void writePlayers(FriendlyByteBuf buf, List<UUID> list) {
+        List<UUID> entries = listOf(list);
+        buf.writeVarInt(entries.size());
+        for (UUID player : entries) {
+            buf.writeVarInt(playerIndex.get(player));
+        }
+    }
+
+    private List<UUID> readPlayers(FriendlyByteBuf buf) {
+        int size = readCount(buf);
+        List<UUID> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(lookup(players, buf.readVarInt()));
+        }
+        return result;
+    }
+
+    private static List<UUID> listOf(List<UUID> list) {
+        return list != null ? list : List.of();
+    }
+
+    /**
+     * Reads a count; every counted item takes at least one byte, so larger counts are garbage.
+     */
+    private static int readCount(FriendlyByteBuf buf) {
+        int count = buf.readVarInt();
+        if (count < 0 || count > buf.readableBytes()) {
+            throw new DecoderException("Bad count " + count + " in gate packet");
+        }
+        return count;
+    }
+
+    private static <T> T lookup(List<T> table, int index) {
+        if (index < 0 || index >= table.size()) {
+            throw new DecoderException("Index " + index + " outside the gate packet's table");
+        }
+        return table.get(index);
+    }
+}
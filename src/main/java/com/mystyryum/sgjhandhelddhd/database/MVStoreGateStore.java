@@ -0,0 +1,251 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.MVStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Embedded database store backed by an H2 {@link MVStore} file ({@code GataBase.mv.db}).
+ * <p>
+ * Each gate is one record in the {@code gatesById} map, keyed by gate id and encoded with
+ * {@link GateBinaryCodec}. A save only touches the records of the changed dimensions, and
+ * only those whose bytes actually differ; MVStore then appends just the modified pages and
+ * commits them atomically, so a save never rewrites the whole table. MVStore compacts its
+ * file in the background.
+ * <p>
+ * The backup is a plain snapshot file, which stays readable by every other store.
+ * <p>
+ * Files written before gate ids keep their gates in a {@code gates} map keyed by name. Those
+ * records are still loaded, and the map is dropped by the first save, which rewrites every
+ * gate under its id.
+ */
+public class MVStoreGateStore implements GateStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MVStoreGateStore.class);
+
+    private static final String GATES_MAP = "gatesById";
+
+    /** Name-keyed map of files written before gate ids. */
+    private static final String LEGACY_GATES_MAP = "gates";
+
+    private final File file;
+    private final File backupFile;
+
+    private MVStore store;
+    private MVMap<Long, byte[]> gates;
+
+    /** Ids of the stored gates per dimension id, so a save can find gates that left a dimension. */
+    private final Map<String, Set<Long>> idsByDimension = new HashMap<>();
+
+    /** Whether {@link #gates} is known to match the last saved table. */
+    private boolean complete = false;
+
+    /**
+     * @param file       the MVStore database file
+     * @param backupFile snapshot file the backup is written to
+     */
+    public MVStoreGateStore(File file, File backupFile) {
+        this.file = file;
+        this.backupFile = backupFile;
+    }
+
+    @Override
+    public String getName() {
+        return "mvstore";
+    }
+
+    @Override
+    public long lastSaved() {
+        return file.lastModified();
+    }
+
+    /**
+     * Reads every record. If the database cannot be opened it is moved aside to {@code .corrupt}
+     * and the gates are taken from the backup snapshot instead; a record that fails to decode is skipped.
+     */
+    @Override
+    public synchronized boolean load(Consumer<GateObject> sink) {
+        idsByDimension.clear();
+        try {
+            open();
+        } catch (MVStoreException e) {
+            LOGGER.error("[MVStoreGateStore] Database {} is damaged, attempting automatic recovery", file.getAbsolutePath(), e);
+            recover(sink);
+            return false;
+        }
+
+        boolean intact = true;
+        for (Map.Entry<Long, byte[]> record : gates.entrySet()) {
+            intact &= decode(record.getKey(), record.getValue(), sink);
+        }
+
+        boolean legacy = store.hasMap(LEGACY_GATES_MAP);
+        if (legacy) {
+            MVMap<String, byte[]> legacyGates = store.openMap(LEGACY_GATES_MAP);
+            LOGGER.info("[MVStoreGateStore] Loading {} gates stored before gate ids", legacyGates.size());
+            for (Map.Entry<String, byte[]> record : legacyGates.entrySet()) {
+                intact &= decode(record.getKey(), record.getValue(), sink);
+            }
+        }
+
+        // A legacy map forces a full save, which moves its gates over
+        complete = intact && !legacy;
+        return intact;
+    }
+
+    @Override
+    public synchronized void save(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException {
+        try {
+            open();
+
+            Map<String, ResourceKey<Level>> dimensions = new HashMap<>();
+            for (ResourceKey<Level> dimension : changed) {
+                dimensions.put(ShardStore.idOf(dimension), dimension);
+            }
+            if (!complete) {
+                for (ResourceKey<Level> dimension : snapshot.getDimensions()) {
+                    dimensions.put(ShardStore.idOf(dimension), dimension);
+                }
+                // Anything already in the file but not in the table must go too
+                for (String id : idsByDimension.keySet()) {
+                    dimensions.putIfAbsent(id, null);
+                }
+            }
+
+            // === Drop gates that are gone or moved to another dimension ===
+            for (String id : dimensions.keySet()) {
+                Set<Long> ids = idsByDimension.remove(id);
+                if (ids == null) {
+                    continue;
+                }
+                for (long gateId : ids) {
+                    GateObject gate = snapshot.get(gateId);
+                    if (gate == null || !id.equals(ShardStore.idOf(gate.getDimension()))) {
+                        gates.remove(gateId);
+                    }
+                }
+            }
+
+            // === Store new and changed gates ===
+            int written = 0;
+            for (ResourceKey<Level> dimension : dimensions.values()) {
+                for (GateObject gate : snapshot.getByDimension(dimension)) {
+                    byte[] record = GateBinaryCodec.encode(List.of(gate));
+                    if (!Arrays.equals(record, gates.get(gate.getId()))) {
+                        gates.put(gate.getId(), record);
+                        written++;
+                    }
+                    track(gate);
+                }
+            }
+            if (!complete && store.hasMap(LEGACY_GATES_MAP)) {
+                // Every gate was just written under its id
+                store.removeMap(LEGACY_GATES_MAP);
+            }
+
+            store.commit();
+            complete = true;
+            LOGGER.info("[MVStoreGateStore] Saved {} changed gates ({} stored).", written, gates.size());
+        } catch (MVStoreException e) {
+            // Uncommitted changes are dropped; the next save starts from a full comparison
+            complete = false;
+            if (store != null) {
+                store.rollback();
+            }
+            throw new IOException("Failed to save gates to " + file.getAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public void backup(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException {
+        SnapshotCodec.write(backupFile, snapshot.values());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (store != null) {
+            try {
+                store.close();
+            } catch (MVStoreException e) {
+                LOGGER.error("[MVStoreGateStore] Failed to close {}", file.getAbsolutePath(), e);
+            }
+            store = null;
+            gates = null;
+        }
+    }
+
+    // === Helpers ===
+
+    private void open() {
+        if (store != null) {
+            return;
+        }
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        store = new MVStore.Builder()
+                .fileName(file.getAbsolutePath())
+                .autoCommitDisabled()
+                .open();
+        gates = store.openMap(GATES_MAP);
+    }
+
+    /**
+     * Decodes one record into {@code sink}.
+     *
+     * @return false if the record is damaged and was skipped
+     */
+    private boolean decode(Object key, byte[] record, Consumer<GateObject> sink) {
+        try {
+            for (GateObject gate : GateBinaryCodec.decode(record)) {
+                track(gate);
+                sink.accept(gate);
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.error("[MVStoreGateStore] Skipping damaged record for gate '{}'", key, e);
+            return false;
+        }
+    }
+
+    private void track(GateObject gate) {
+        if (gate.getId() > 0) {
+            idsByDimension.computeIfAbsent(ShardStore.idOf(gate.getDimension()), id -> new HashSet<>()).add(gate.getId());
+        }
+    }
+
+    /**
+     * Moves the damaged database aside and loads the backup snapshot; the next save recreates the file.
+     */
+    private void recover(Consumer<GateObject> sink) {
+        close();
+        try {
+            Files.move(file.toPath(), new File(file.getPath() + ".corrupt").toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.error("[MVStoreGateStore] Failed to move damaged database aside", e);
+        }
+
+        if (SnapshotCodec.read(backupFile, false, sink)) {
+            LOGGER.warn("[MVStoreGateStore] Recovered gates from backup {}", backupFile.getAbsolutePath());
+        } else {
+            LOGGER.error("[MVStoreGateStore] Backup {} is damaged too; recovering from the journal only", backupFile.getAbsolutePath());
+        }
+        complete = false;
+    }
+}
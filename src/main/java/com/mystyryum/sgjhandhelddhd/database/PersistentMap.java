@@ -0,0 +1,424 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Immutable hash map that shares structure between versions (a hash array mapped trie).
+ * <p>
+ * {@link #with} and {@link #without} return a new map and leave this one untouched. Only
+ * the path from the root to the changed entry is copied, at most one small node per level,
+ * so a change costs O(log32 n) however large the map is, and every version built from
+ * another keeps sharing all of its unchanged nodes. {@link GateTable} keeps every index in
+ * these maps, so one edit no longer copies the whole table.
+ * <p>
+ * Each level of the trie takes five bits of a 64-bit hash. Keys whose hashes are equal in
+ * all 64 bits end up in one collision node and are told apart with {@code equals}.
+ * Iteration order follows the hashes: it is the same for equal contents, but unrelated to
+ * insertion order. Null keys are allowed; null values are not.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class PersistentMap<K, V> {
+
+    /** Bits of the hash consumed per level. */
+    private static final int BITS = 5;
+
+    /** Nodes at this shift have used up the hash and hold colliding entries in plain order. */
+    private static final int COLLISION_SHIFT = 65;
+
+    /** Deepest possible path: one node per level plus the collision node. */
+    private static final int MAX_DEPTH = COLLISION_SHIFT / BITS + 1;
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(Node.EMPTY, 0);
+
+    /**
+     * One key and value, with the key's hash. Never changed once created.
+     */
+    private static final class Entry {
+        final long hash;
+        final Object key;
+        final Object value;
+
+        Entry(long hash, Object key, Object value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Inner node: {@code slots} holds an {@link Entry} or child {@code Node} for each bit set
+     * in {@code bitmap}, in bit order. Collision nodes ignore the bitmap.
+     */
+    private static final class Node {
+        static final Node EMPTY = new Node(0, new Object[0]);
+
+        final int bitmap;
+        final Object[] slots;
+
+        Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+    }
+
+    private final Node root;
+    private final int size;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * @param key the key
+     * @return the mapped value, or null
+     */
+    V get(Object key) {
+        return getHashed(hash(key), key);
+    }
+
+    boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param key   the key
+     * @param value the value (not null)
+     * @return a map with {@code key} mapped to {@code value}; this map if it already was
+     */
+    PersistentMap<K, V> with(K key, V value) {
+        return withHashed(hash(key), key, value);
+    }
+
+    /**
+     * @param key the key
+     * @return a map without {@code key}; this map if it had no such key
+     */
+    PersistentMap<K, V> without(Object key) {
+        return withoutHashed(hash(key), key, null, false);
+    }
+
+    /**
+     * Removes a key only if it is mapped to the given value (by identity).
+     *
+     * @param key      the key
+     * @param expected the value the key must map to
+     * @return a map without the entry; this map if the key was absent or mapped to something else
+     */
+    PersistentMap<K, V> without(Object key, V expected) {
+        return withoutHashed(hash(key), key, expected, true);
+    }
+
+    /**
+     * Replaces the value of one key through a function. The function receives the current
+     * value, or null if there is none, and returns the new one; null removes the key.
+     *
+     * @param key      the key
+     * @param function computes the new value
+     * @return the updated map; this map if nothing changed
+     */
+    PersistentMap<K, V> update(K key, Function<? super V, ? extends V> function) {
+        V current = get(key);
+        V next = function.apply(current);
+        if (next == current) {
+            return this;
+        }
+        return next == null ? without(key) : with(key, next);
+    }
+
+    /**
+     * Calls {@code action} for every entry, in iteration order.
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        Iterator<Entry> entries = new EntryIterator(root);
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            action.accept((K) entry.key, (V) entry.value);
+        }
+    }
+
+    /**
+     * @return a live view of the keys; iterating it never copies the map
+     */
+    @SuppressWarnings("unchecked")
+    Iterable<K> keys() {
+        return () -> new Mapped<>(new EntryIterator(root), entry -> (K) entry.key);
+    }
+
+    /**
+     * @return a live view of the values; iterating it never copies the map
+     */
+    @SuppressWarnings("unchecked")
+    Iterable<V> values() {
+        return () -> new Mapped<>(new EntryIterator(root), entry -> (V) entry.value);
+    }
+
+    // === Keyed by a precomputed hash ===
+    // Callers that pass a null key must pass hashes that are unique per key (see AddressMap).
+
+    @SuppressWarnings("unchecked")
+    V getHashed(long hash, Object key) {
+        Node node = root;
+        for (int shift = 0; ; shift += BITS) {
+            if (shift >= COLLISION_SHIFT) {
+                for (Object slot : node.slots) {
+                    Entry entry = (Entry) slot;
+                    if (matches(entry, hash, key)) {
+                        return (V) entry.value;
+                    }
+                }
+                return null;
+            }
+
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object slot = node.slots[index(node.bitmap, bit)];
+            if (slot instanceof Entry entry) {
+                return matches(entry, hash, key) ? (V) entry.value : null;
+            }
+            node = (Node) slot;
+        }
+    }
+
+    PersistentMap<K, V> withHashed(long hash, Object key, V value) {
+        Objects.requireNonNull(value, "value");
+        boolean[] added = {false};
+        Node next = put(root, 0, new Entry(hash, key, value), added);
+        return next == root ? this : new PersistentMap<>(next, added[0] ? size + 1 : size);
+    }
+
+    PersistentMap<K, V> withoutHashed(long hash, Object key, Object expected, boolean conditional) {
+        Node next = remove(root, 0, hash, key, expected, conditional);
+        if (next == root) {
+            return this;
+        }
+        return size == 1 ? empty() : new PersistentMap<>(next != null ? next : Node.EMPTY, size - 1);
+    }
+
+    // === Trie operations ===
+
+    /**
+     * @return the node with {@code entry} stored; {@code node} itself if it already held it
+     */
+    private static Node put(Node node, int shift, Entry entry, boolean[] added) {
+        if (shift >= COLLISION_SHIFT) {
+            for (int i = 0; i < node.slots.length; i++) {
+                Entry existing = (Entry) node.slots[i];
+                if (matches(existing, entry.hash, entry.key)) {
+                    return existing.value == entry.value ? node : new Node(0, replaced(node.slots, i, entry));
+                }
+            }
+            added[0] = true;
+            return new Node(0, inserted(node.slots, node.slots.length, entry));
+        }
+
+        int bit = bit(entry.hash, shift);
+        int index = index(node.bitmap, bit);
+        if ((node.bitmap & bit) == 0) {
+            added[0] = true;
+            return new Node(node.bitmap | bit, inserted(node.slots, index, entry));
+        }
+
+        Object slot = node.slots[index];
+        if (slot instanceof Entry existing) {
+            if (matches(existing, entry.hash, entry.key)) {
+                return existing.value == entry.value ? node : new Node(node.bitmap, replaced(node.slots, index, entry));
+            }
+            // Two entries share this slot: push both one level down
+            Node child = put(put(Node.EMPTY, shift + BITS, existing, new boolean[1]), shift + BITS, entry, added);
+            return new Node(node.bitmap, replaced(node.slots, index, child));
+        }
+
+        Node child = (Node) slot;
+        Node changed = put(child, shift + BITS, entry, added);
+        return changed == child ? node : new Node(node.bitmap, replaced(node.slots, index, changed));
+    }
+
+    /**
+     * @return the node without the entry, null if that leaves it empty, or {@code node}
+     *         itself if there was nothing to remove
+     */
+    private static Node remove(Node node, int shift, long hash, Object key, Object expected, boolean conditional) {
+        if (shift >= COLLISION_SHIFT) {
+            for (int i = 0; i < node.slots.length; i++) {
+                Entry existing = (Entry) node.slots[i];
+                if (matches(existing, hash, key)) {
+                    if (conditional && existing.value != expected) {
+                        return node;
+                    }
+                    return node.slots.length == 1 ? null : new Node(0, removed(node.slots, i));
+                }
+            }
+            return node;
+        }
+
+        int bit = bit(hash, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = index(node.bitmap, bit);
+        Object slot = node.slots[index];
+
+        Object replacement;
+        if (slot instanceof Entry existing) {
+            if (!matches(existing, hash, key) || (conditional && existing.value != expected)) {
+                return node;
+            }
+            replacement = null;
+        } else {
+            Node child = (Node) slot;
+            Node changed = remove(child, shift + BITS, hash, key, expected, conditional);
+            if (changed == child) {
+                return node;
+            }
+            // A child left holding a single entry is folded back into this node
+            replacement = changed != null && changed.slots.length == 1 && changed.slots[0] instanceof Entry
+                    ? changed.slots[0]
+                    : changed;
+        }
+
+        if (replacement != null) {
+            return new Node(node.bitmap, replaced(node.slots, index, replacement));
+        }
+        return node.slots.length == 1 ? null : new Node(node.bitmap & ~bit, removed(node.slots, index));
+    }
+
+    // === Helpers ===
+
+    private static long hash(Object key) {
+        // Spread the 32-bit hash code over all 64 bits, so every level sees well-mixed bits
+        long h = Objects.hashCode(key) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static boolean matches(Entry entry, long hash, Object key) {
+        return entry.hash == hash && Objects.equals(entry.key, key);
+    }
+
+    private static int bit(long hash, int shift) {
+        return 1 << (int) ((hash >>> shift) & 31);
+    }
+
+    private static int index(int bitmap, int bit) {
+        return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    private static Object[] inserted(Object[] slots, int index, Object value) {
+        Object[] result = new Object[slots.length + 1];
+        System.arraycopy(slots, 0, result, 0, index);
+        result[index] = value;
+        System.arraycopy(slots, index, result, index + 1, slots.length - index);
+        return result;
+    }
+
+    private static Object[] replaced(Object[] slots, int index, Object value) {
+        Object[] result = slots.clone();
+        result[index] = value;
+        return result;
+    }
+
+    private static Object[] removed(Object[] slots, int index) {
+        Object[] result = new Object[slots.length - 1];
+        System.arraycopy(slots, 0, result, 0, index);
+        System.arraycopy(slots, index + 1, result, index, slots.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Depth-first walk over every entry, with an explicit stack instead of recursion.
+     */
+    private static final class EntryIterator implements Iterator<Entry> {
+        private final Node[] nodes = new Node[MAX_DEPTH + 1];
+        private final int[] positions = new int[MAX_DEPTH + 1];
+        private int depth;
+        private Entry next;
+
+        EntryIterator(Node root) {
+            nodes[0] = root;
+            depth = 1;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Entry next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                Node node = nodes[depth - 1];
+                int position = positions[depth - 1];
+                if (position >= node.slots.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth - 1] = position + 1;
+
+                Object slot = node.slots[position];
+                if (slot instanceof Entry entry) {
+                    next = entry;
+                    return;
+                }
+                nodes[depth] = (Node) slot;
+                positions[depth] = 0;
+                depth++;
+            }
+        }
+    }
+
+    private static final class Mapped<T> implements Iterator<T> {
+        private final Iterator<Entry> entries;
+        private final Function<Entry, T> mapping;
+
+        Mapped(Iterator<Entry> entries, Function<Entry, T> mapping) {
+            this.entries = entries;
+            this.mapping = mapping;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public T next() {
+            return mapping.apply(entries.next());
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.mystyryum.sgjhandhelddhd.Config;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Sharded snapshot layout: one snapshot file per dimension plus a small manifest.
+ * <pre>
+ *   plugins/SGHDHD/shards/manifest                    shard list, gate counts, payload checksums
+ *   plugins/SGHDHD/shards/minecraft@overworld.shard   gates placed in minecraft:overworld
+ *   plugins/SGHDHD/shards/_unplaced.shard             gates without a dimension
+ * </pre>
+ * A compaction rewrites only the shards of dimensions changed since the last save, then the
+ * manifest; a backup copies only the shards whose content differs from the last backup. Write cost therefore scales with what changed, not with
+ * the number of dimensions. Each shard is an ordinary {@link SnapshotFile} in the
+ * configured snapshot format.
+ * <p>
+ * The manifest is written last, so a crash mid-compaction leaves the previous manifest in
+ * charge; the journal still holds every change and is only discarded after a full save.
+ */
+public class ShardStore implements GateStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardStore.class);
+
+    private static final Gson GSON = new Gson();
+
+    private static final String MANIFEST_NAME = "manifest";
+    private static final String MANIFEST_FORMAT = "manifest";
+    private static final String SHARD_SUFFIX = ".shard";
+
+    /** Shard id for gates without a dimension; cannot clash with a real id, which always contains ':'. */
+    private static final String UNPLACED = "_unplaced";
+
+    /** Manifest payload, stored as JSON. */
+    private static final class Manifest {
+        int version = 1;
+        Map<String, Entry> shards = new TreeMap<>();
+    }
+
+    /** One shard in the manifest. */
+    private static final class Entry {
+        String file;
+        int gates;
+        long crc;
+
+        Entry(String file, int gates, long crc) {
+            this.file = file;
+            this.gates = gates;
+            this.crc = crc;
+        }
+    }
+
+    private final File directory;
+    private final File backupDirectory;
+
+    /** Manifest of {@link #directory}; only touched by the writer thread. */
+    private Manifest manifest;
+
+    /** Manifest of {@link #backupDirectory}; read from disk on the first backup. */
+    private Manifest backupManifest;
+
+    /** Whether the shards on disk hold every gate, so saves may skip clean dimensions. */
+    private volatile boolean complete = false;
+
+    /**
+     * @param directory       directory holding the live shards and manifest
+     * @param backupDirectory directory holding the backup copies
+     */
+    public ShardStore(File directory, File backupDirectory) {
+        this.directory = directory;
+        this.backupDirectory = backupDirectory;
+    }
+
+    @Override
+    public String getName() {
+        return "sharded";
+    }
+
+    /**
+     * @return modification time of the manifest, which is written last in every save
+     */
+    @Override
+    public long lastSaved() {
+        return new File(directory, MANIFEST_NAME).lastModified();
+    }
+
+    /**
+     * Loads every shard listed in the manifest. A damaged shard is replaced by its backup copy
+     * when possible; either way the store is marked incomplete, so the next save rewrites all shards.
+     * {@link SnapshotCodec#read} passes on nothing from a shard that fails part way, so a shard's
+     * gates come from exactly one of the two copies.
+     * Shards are memory-mapped when {@link Config#MAPPEDSNAPSHOTLOAD} is set.
+     */
+    @Override
+    public boolean load(Consumer<GateObject> sink) {
+        boolean mapped = Config.MAPPEDSNAPSHOTLOAD.get();
+        manifest = readManifest(directory);
+        boolean intact = manifest != null;
+        if (!intact) {
+            LOGGER.error("[ShardStore] Manifest in {} is missing or damaged; loading every shard file found", directory.getAbsolutePath());
+            manifest = new Manifest();
+        }
+
+        Collection<String> files = intact ? shardFiles(manifest) : scanShardFiles(directory);
+        for (String name : files) {
+            if (SnapshotCodec.read(new File(directory, name), mapped, sink)) {
+                continue;
+            }
+
+            intact = false;
+            LOGGER.error("[ShardStore] Shard {} is damaged, trying its backup", name);
+            if (!SnapshotCodec.read(new File(backupDirectory, name), false, sink)) {
+                LOGGER.error("[ShardStore] Backup of shard {} is damaged too; its gates come from the journal only", name);
+            }
+        }
+
+        complete = intact;
+        return intact;
+    }
+
+    /**
+     * Writes the shards of the changed dimensions and then the manifest.
+     * If the shards on disk are not known to be complete, every dimension is written instead.
+     * Shards whose content did not change are skipped.
+     */
+    @Override
+    public synchronized void save(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException {
+        if (manifest == null) {
+            Manifest onDisk = readManifest(directory);
+            manifest = onDisk != null ? onDisk : new Manifest();
+        }
+
+        boolean full = !complete;
+        int written = writeShards(directory, manifest, snapshot, changed, full);
+        writeManifest(directory, manifest);
+        complete = true;
+        LOGGER.info("[ShardStore] Saved {} of {} shards{}.", written, manifest.shards.size(), full ? " (full pass)" : "");
+    }
+
+    /**
+     * Copies changed shards into the backup directory.
+     * The first backup after a start compares every shard against the backup manifest.
+     */
+    @Override
+    public synchronized void backup(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException {
+        boolean full = backupManifest == null;
+        if (full) {
+            Manifest onDisk = readManifest(backupDirectory);
+            backupManifest = onDisk != null ? onDisk : new Manifest();
+        }
+
+        int written = writeShards(backupDirectory, backupManifest, snapshot, changed, full);
+        writeManifest(backupDirectory, backupManifest);
+        LOGGER.info("[ShardStore] Backed up {} of {} shards.", written, backupManifest.shards.size());
+    }
+
+    // === Helpers ===
+
+    /**
+     * Writes the listed dimensions (or, with {@code full}, every dimension in the snapshot or the
+     * manifest) into {@code target}, updating {@code into}. Empty dimensions lose their shard.
+     *
+     * @return number of shard files written
+     */
+    private static int writeShards(File target, Manifest into, GateTable snapshot,
+                                   Set<ResourceKey<Level>> dimensions, boolean full) throws IOException {
+        Map<String, ResourceKey<Level>> pending = new HashMap<>();
+        for (ResourceKey<Level> dimension : dimensions) {
+            pending.put(idOf(dimension), dimension);
+        }
+        if (full) {
+            for (ResourceKey<Level> dimension : snapshot.getDimensions()) {
+                pending.put(idOf(dimension), dimension);
+            }
+            // Stale shards of dimensions that no longer have gates
+            for (String id : into.shards.keySet()) {
+                pending.putIfAbsent(id, null);
+            }
+        }
+
+        int written = 0;
+        for (Map.Entry<String, ResourceKey<Level>> shard : pending.entrySet()) {
+            String id = shard.getKey();
+            String name = fileNameOf(id);
+            File file = new File(target, name);
+
+            // An id without a key is a stale manifest entry; UNPLACED legitimately maps to null
+            boolean stale = shard.getValue() == null && !UNPLACED.equals(id);
+            List<GateObject> gates = stale ? List.of() : snapshot.getByDimension(shard.getValue());
+
+            if (gates.isEmpty()) {
+                Files.deleteIfExists(file.toPath());
+                into.shards.remove(id);
+                continue;
+            }
+
+            SnapshotCodec.Encoded encoded = SnapshotCodec.encode(gates);
+            long crc = encoded.crc();
+            Entry previous = into.shards.get(id);
+            if (previous != null && previous.crc == crc && file.exists()) {
+                continue;
+            }
+
+            SnapshotFile.write(file, encoded.payload(), encoded.format());
+            into.shards.put(id, new Entry(name, gates.size(), crc));
+            written++;
+        }
+        return written;
+    }
+
+    private static Manifest readManifest(File dir) {
+        SnapshotFile.Contents contents = SnapshotFile.read(new File(dir, MANIFEST_NAME));
+        if (contents.getStatus() != SnapshotFile.Status.VALID) {
+            return null;
+        }
+        try {
+            Manifest manifest = GSON.fromJson(new String(contents.getPayload(), StandardCharsets.UTF_8), Manifest.class);
+            return manifest != null && manifest.shards != null ? manifest : null;
+        } catch (JsonParseException e) {
+            LOGGER.error("[ShardStore] Failed to parse manifest in {}", dir.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private static void writeManifest(File dir, Manifest manifest) throws IOException {
+        byte[] payload = GSON.toJson(manifest).getBytes(StandardCharsets.UTF_8);
+        SnapshotFile.write(new File(dir, MANIFEST_NAME), payload, MANIFEST_FORMAT);
+    }
+
+    private static Collection<String> shardFiles(Manifest manifest) {
+        List<String> files = new ArrayList<>();
+        for (Entry entry : manifest.shards.values()) {
+            files.add(entry.file);
+        }
+        return files;
+    }
+
+    private static Collection<String> scanShardFiles(File dir) {
+        List<String> files = new ArrayList<>();
+        String[] names = dir.list((parent, name) -> name.endsWith(SHARD_SUFFIX));
+        if (names != null) {
+            Collections.addAll(files, names);
+        }
+        return files;
+    }
+
+    /**
+     * @return the dimension's id, or a reserved id for gates without a dimension
+     */
+    static String idOf(ResourceKey<Level> dimension) {
+        return dimension == null ? UNPLACED : dimension.location().toString();
+    }
+
+    /**
+     * Maps a dimension id to a file name. '@' and '+' never occur in resource locations,
+     * so the mapping is unambiguous and safe on every filesystem.
+     */
+    private static String fileNameOf(String id) {
+        return id.replace(':', '@').replace('/', '+') + SHARD_SUFFIX;
+    }
+}
@@ -0,0 +1,159 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.mystyryum.sgjhandhelddhd.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes gate lists into snapshot payloads and reads them back, in either supported format.
+ * <p>
+ * Used for the single-file snapshot, its backup and every per-dimension shard, so all of
+ * them share the same format selection, validation and quarantine rules.
+ */
+public final class SnapshotCodec {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotCodec.class);
+
+    /** Payload format name of JSON snapshots; binary snapshots use {@link GateBinaryCodec#FORMAT}. */
+    public static final String JSON_FORMAT = "json";
+
+    private static final Gson GSON = new Gson();
+
+    /** Reflection type for a persisted {@code List<GateObject>}. */
+    private static final Type GATE_LIST_TYPE = new TypeToken<List<GateObject>>() {}.getType();
+
+    /**
+     * An encoded payload and the format name to put in its snapshot header.
+     */
+    public record Encoded(byte[] payload, String format) {
+
+        /** @return CRC32 of the payload, for cheap change detection */
+        public long crc() {
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return crc.getValue();
+        }
+    }
+
+    private SnapshotCodec() {}
+
+    /**
+     * Encodes gates in the format selected by {@link Config#SNAPSHOTFORMAT}.
+     *
+     * @param gates the gates to encode
+     * @return the payload and its format name
+     */
+    public static Encoded encode(List<GateObject> gates) {
+        if (JSON_FORMAT.equals(Config.SNAPSHOTFORMAT.get())) {
+            return new Encoded(encodeJson(gates), JSON_FORMAT);
+        }
+        return new Encoded(GateBinaryCodec.encode(gates), GateBinaryCodec.FORMAT);
+    }
+
+    /**
+     * Writes gates as a checksummed snapshot in the format selected by {@link Config#SNAPSHOTFORMAT}.
+     *
+     * @param target the snapshot file to replace
+     * @param gates  the gates to write
+     * @throws IOException if the snapshot could not be written
+     */
+    public static void write(File target, List<GateObject> gates) throws IOException {
+        Encoded encoded = encode(gates);
+        SnapshotFile.write(target, encoded.payload(), encoded.format());
+    }
+
+    /**
+     * Reads and verifies a snapshot file, passing each gate to {@code sink}.
+     * <p>
+     * When {@code mapped} is set the file is memory-mapped instead of read onto the heap, and
+     * binary snapshots leave each gate's whitelist and blacklist in the mapping until first use.
+     * JSON is streamed one entry at a time by {@link GateJsonReader}; entries that fail
+     * validation are skipped and saved next to the file as {@code <file>.rejected-<time>.json}.
+     * <p>
+     * Gates only reach {@code sink} once the whole file has parsed, so a file that turns out to
+     * be damaged part way through contributes nothing and the caller can fall back to a backup
+     * without loading some gates twice.
+     *
+     * @param file   the snapshot to read
+     * @param mapped whether to memory-map the file and decode lazily
+     * @param sink   receives every gate in the file, or nothing if the file is damaged
+     * @return true if the file was read (an empty file counts), false if it is damaged
+     */
+    public static boolean read(File file, boolean mapped, Consumer<GateObject> sink) {
+        SnapshotFile.Contents contents = mapped ? SnapshotFile.map(file) : SnapshotFile.read(file);
+
+        switch (contents.getStatus()) {
+            case EMPTY:
+                return true;
+            case CORRUPT:
+                return false;
+            default:
+                break;
+        }
+
+        // Headerless legacy files are always JSON
+        try {
+            if (GateBinaryCodec.FORMAT.equals(contents.getFormat())) {
+                GateBinaryCodec.decode(contents.getBuffer(), mapped).forEach(sink);
+                return true;
+            }
+
+            // Held back until the end so a syntax error near the end doesn't leave a partial load
+            List<GateObject> gates = new ArrayList<>();
+            Reader json = new InputStreamReader(new ByteBufferInputStream(contents.getBuffer()), StandardCharsets.UTF_8);
+            GateJsonReader.Result result = GateJsonReader.read(json, gates::add);
+            if (!result.getRejected().isEmpty()) {
+                quarantine(file, result);
+            }
+            gates.forEach(sink);
+            return true;
+        } catch (IOException | JsonParseException e) {
+            LOGGER.error("[SnapshotCodec] Failed to parse {}", file.getAbsolutePath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Encodes a list of gates as JSON.
+     *
+     * @param gates the gates to encode
+     * @return the UTF-8 JSON bytes
+     */
+    public static byte[] encodeJson(List<GateObject> gates) {
+        for (GateObject gate : gates) {
+            gate.resolveLists();
+        }
+        return GSON.toJson(gates, GATE_LIST_TYPE).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Saves entries rejected while loading {@code file} next to it, so they can be fixed by hand
+     * and re-imported with {@link GataBase#importJson}.
+     */
+    private static void quarantine(File file, GateJsonReader.Result result) {
+        File rejectedFile = new File(file.getPath() + ".rejected-" + System.currentTimeMillis() + ".json");
+        try {
+            Files.write(rejectedFile.toPath(), GSON.toJson(result.rejectedAsArray()).getBytes(StandardCharsets.UTF_8));
+            LOGGER.warn("[SnapshotCodec] Skipped {} invalid gates in {} ({} loaded); saved them to {}",
+                    result.getRejected().size(), file.getName(), result.getAccepted(), rejectedFile.getAbsolutePath());
+        } catch (IOException e) {
+            LOGGER.error("[SnapshotCodec] Skipped {} invalid gates in {} and failed to save them aside",
+                    result.getRejected().size(), file.getAbsolutePath(), e);
+        }
+    }
+}
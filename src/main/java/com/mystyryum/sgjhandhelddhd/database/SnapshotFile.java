@@ -0,0 +1,313 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Crash-safe reading and writing of Gatabase snapshot files.
+ * <p>
+ * A snapshot is a single header line followed by the raw payload:
+ * <pre>
+ *   SGHDHD-SNAPSHOT v1 format=json length=1234 crc32=89abcdef\n
+ *   [payload bytes]
+ * </pre>
+ * Writes go to a {@code .tmp} sibling, are forced to disk and then atomically
+ * renamed over the target, so a crash leaves either the old or the new file
+ * intact, never a truncated one. The header lets readers tell a complete file
+ * from a damaged one before parsing it.
+ * <p>
+ * Files without a header (written before checksums existed, or edited by hand)
+ * are reported as {@link Status#LEGACY} and left to the payload parser to judge.
+ * <p>
+ * {@link #map(File)} verifies a snapshot in place through a read-only memory mapping,
+ * so the payload is never copied onto the heap.
+ */
+public final class SnapshotFile {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotFile.class);
+
+    /** Magic prefix of the header line. */
+    private static final String MAGIC = "SGHDHD-SNAPSHOT";
+
+    /** Current header version. */
+    private static final String VERSION = "v1";
+
+    /** Longest header line we are willing to scan for. */
+    private static final int MAX_HEADER_LENGTH = 256;
+
+    /** Result of inspecting a snapshot file. */
+    public enum Status {
+        /** Header present and payload matches its length and checksum. */
+        VALID,
+        /** No header; payload is the whole file. */
+        LEGACY,
+        /** File missing or zero bytes long. */
+        EMPTY,
+        /** Header present but payload truncated or checksum mismatch, or file unreadable. */
+        CORRUPT
+    }
+
+    /**
+     * Contents of a snapshot file, as returned by {@link #read(File)}.
+     */
+    public static final class Contents {
+        private final Status status;
+        private final String format;
+        private final ByteBuffer payload;
+
+        private Contents(Status status, String format, byte[] payload) {
+            this(status, format, ByteBuffer.wrap(payload));
+        }
+
+        private Contents(Status status, String format, ByteBuffer payload) {
+            this.status = status;
+            this.format = format;
+            this.payload = payload;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /** @return the payload format named in the header, or null for legacy/empty files */
+        public String getFormat() {
+            return format;
+        }
+
+        /** @return the payload bytes; empty for EMPTY and CORRUPT files. Copies mapped payloads onto the heap. */
+        public byte[] getPayload() {
+            if (payload.hasArray() && payload.arrayOffset() == 0 && payload.capacity() == payload.array().length) {
+                return payload.array();
+            }
+            byte[] bytes = new byte[payload.remaining()];
+            payload.duplicate().get(bytes);
+            return bytes;
+        }
+
+        /** @return a read-only view of the payload; backed by the file itself for mapped snapshots */
+        public ByteBuffer getBuffer() {
+            return payload.asReadOnlyBuffer();
+        }
+
+        public boolean isCorrupt() {
+            return status == Status.CORRUPT;
+        }
+    }
+
+    private SnapshotFile() {}
+
+    /**
+     * Atomically replaces {@code target} with a checksummed snapshot of {@code payload}.
+     *
+     * @param target  the snapshot file to write
+     * @param payload the encoded gate data
+     * @param format  short payload format name stored in the header (e.g. "json")
+     * @throws IOException if the snapshot could not be written; the old file is left untouched
+     */
+    public static void write(File target, byte[] payload, String format) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        String header = MAGIC + " " + VERSION
+                + " format=" + format
+                + " length=" + payload.length
+                + " crc32=" + Long.toHexString(crc.getValue())
+                + "\n";
+
+        Path targetPath = target.toPath().toAbsolutePath();
+        Path tmpPath = targetPath.resolveSibling(target.getName() + ".tmp");
+
+        if (targetPath.getParent() != null) {
+            Files.createDirectories(targetPath.getParent());
+        }
+
+        // === Write and force the temp file ===
+        try (FileChannel channel = FileChannel.open(tmpPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer = ByteBuffer.wrap(payload);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        // === Atomically swap it into place ===
+        try {
+            Files.move(tmpPath, targetPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOGGER.warn("[SnapshotFile] Atomic rename not supported for {}, falling back to plain replace", targetPath);
+            Files.move(tmpPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        forceDirectory(targetPath.getParent());
+    }
+
+    /**
+     * Reads and verifies a snapshot file.
+     *
+     * @param file the file to read
+     * @return the file contents and their integrity status; never null
+     */
+    public static Contents read(File file) {
+        if (!file.exists()) {
+            return new Contents(Status.EMPTY, null, new byte[0]);
+        }
+
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            LOGGER.error("[SnapshotFile] Failed to read {}", file.getAbsolutePath(), e);
+            return new Contents(Status.CORRUPT, null, new byte[0]);
+        }
+
+        if (bytes.length == 0) {
+            return new Contents(Status.EMPTY, null, bytes);
+        }
+
+        return verify(file, ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Memory-maps and verifies a snapshot file without copying it onto the heap.
+     * <p>
+     * The returned payload buffer reads straight from the page cache. The mapping stays
+     * alive for as long as anything references the buffer, so keep it only until the
+     * data it backs has been decoded or replaced. Some platforms (Windows) refuse to
+     * replace a file while it is mapped.
+     *
+     * @param file the file to map
+     * @return the file contents and their integrity status; never null
+     */
+    public static Contents map(File file) {
+        if (!file.exists()) {
+            return new Contents(Status.EMPTY, null, new byte[0]);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return new Contents(Status.EMPTY, null, new byte[0]);
+            }
+            if (size > Integer.MAX_VALUE) {
+                LOGGER.error("[SnapshotFile] {} is too large to map ({} bytes)", file.getAbsolutePath(), size);
+                return new Contents(Status.CORRUPT, null, new byte[0]);
+            }
+            // The mapping remains valid after the channel is closed
+            return verify(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } catch (IOException e) {
+            LOGGER.error("[SnapshotFile] Failed to map {}", file.getAbsolutePath(), e);
+            return new Contents(Status.CORRUPT, null, new byte[0]);
+        }
+    }
+
+    // === Helpers ===
+
+    /**
+     * Checks the header of a whole snapshot file and verifies its payload.
+     *
+     * @param file  the file the bytes came from, for logging
+     * @param bytes the complete file contents, positioned at 0
+     */
+    private static Contents verify(File file, ByteBuffer bytes) {
+        if (!startsWithMagic(bytes)) {
+            return new Contents(Status.LEGACY, null, bytes);
+        }
+
+        // === Parse the header line ===
+        int newline = -1;
+        for (int i = 0; i < Math.min(bytes.limit(), MAX_HEADER_LENGTH); i++) {
+            if (bytes.get(i) == '\n') {
+                newline = i;
+                break;
+            }
+        }
+        if (newline < 0) {
+            LOGGER.error("[SnapshotFile] {} has an unterminated header", file.getAbsolutePath());
+            return new Contents(Status.CORRUPT, null, new byte[0]);
+        }
+
+        byte[] headerBytes = new byte[newline];
+        bytes.duplicate().get(headerBytes);
+        Map<String, String> fields = new HashMap<>();
+        for (String token : new String(headerBytes, StandardCharsets.US_ASCII).split(" ")) {
+            int eq = token.indexOf('=');
+            if (eq > 0) {
+                fields.put(token.substring(0, eq), token.substring(eq + 1));
+            }
+        }
+
+        long expectedLength;
+        long expectedCrc;
+        try {
+            expectedLength = Long.parseLong(fields.get("length"));
+            expectedCrc = Long.parseLong(fields.get("crc32"), 16);
+        } catch (NumberFormatException | NullPointerException e) {
+            LOGGER.error("[SnapshotFile] {} has a malformed header", file.getAbsolutePath());
+            return new Contents(Status.CORRUPT, null, new byte[0]);
+        }
+
+        // === Verify length and checksum ===
+        ByteBuffer payload = bytes.duplicate().position(newline + 1).slice();
+        if (payload.remaining() != expectedLength) {
+            LOGGER.error("[SnapshotFile] {} is truncated: expected {} bytes, found {}",
+                    file.getAbsolutePath(), expectedLength, payload.remaining());
+            return new Contents(Status.CORRUPT, fields.get("format"), new byte[0]);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if (crc.getValue() != expectedCrc) {
+            LOGGER.error("[SnapshotFile] {} failed its checksum", file.getAbsolutePath());
+            return new Contents(Status.CORRUPT, fields.get("format"), new byte[0]);
+        }
+
+        return new Contents(Status.VALID, fields.get("format"), payload);
+    }
+
+    private static boolean startsWithMagic(ByteBuffer bytes) {
+        byte[] magic = MAGIC.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.limit() < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (bytes.get(i) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forces the directory entry of a rename to disk. Not supported on every platform,
+     * in which case the rename is still atomic but may not survive a power loss.
+     */
+    private static void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            LOGGER.debug("[SnapshotFile] Could not force directory {}: {}", directory, e.toString());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.Config;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Single-file store: the whole table in {@code GataBase.json}, with a full copy in {@code backup.json}.
+ * <p>
+ * Both files are {@link SnapshotFile}s in the format chosen by {@link Config#SNAPSHOTFORMAT}
+ * (JSON or binary); either format is read back regardless of the setting. Every save
+ * rewrites the whole file, so the set of changed dimensions is ignored.
+ */
+public class SnapshotGateStore implements GateStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotGateStore.class);
+
+    private final File mainFile;
+    private final File backupFile;
+
+    /**
+     * @param mainFile   the snapshot file
+     * @param backupFile the backup snapshot file
+     */
+    public SnapshotGateStore(File mainFile, File backupFile) {
+        this.mainFile = mainFile;
+        this.backupFile = backupFile;
+    }
+
+    @Override
+    public String getName() {
+        return "single";
+    }
+
+    @Override
+    public long lastSaved() {
+        // A freshly created empty file holds no data
+        return mainFile.length() > 0 ? mainFile.lastModified() : 0L;
+    }
+
+    /**
+     * Reads the main snapshot, creating missing files and parent directories first.
+     * <p>
+     * If the main snapshot fails its checksum (or, for legacy files, cannot be parsed), it is moved
+     * aside to {@code .corrupt} and replaced with the backup when that one is intact.
+     * If neither is usable nothing is loaded and the journal is the only source of data.
+     */
+    @Override
+    public boolean load(Consumer<GateObject> sink) {
+        createIfMissing(mainFile, "main");
+        createIfMissing(backupFile, "backup");
+
+        // === Verify the main snapshot ===
+        if (SnapshotCodec.read(mainFile, Config.MAPPEDSNAPSHOTLOAD.get(), sink)) {
+            return true;
+        }
+
+        LOGGER.error("[GataBase] Main database {} is damaged, attempting automatic recovery", mainFile.getAbsolutePath());
+
+        // Keep the damaged file around for inspection
+        try {
+            Files.move(mainFile.toPath(), new File(mainFile.getPath() + ".corrupt").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOGGER.error("[GataBase] Failed to move damaged database aside", e);
+        }
+
+        // === Fall back to the backup ===
+        if (SnapshotCodec.read(backupFile, false, sink)) {
+            LOGGER.warn("[GataBase] Recovered gates from backup {}", backupFile.getAbsolutePath());
+        } else {
+            LOGGER.error("[GataBase] Backup {} is damaged too; recovering from the journal only", backupFile.getAbsolutePath());
+        }
+        return false;
+    }
+
+    @Override
+    public void save(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException {
+        // === Atomically write the snapshot ===
+        SnapshotCodec.write(mainFile, snapshot.values());
+    }
+
+    @Override
+    public void backup(GateTable snapshot, Set<ResourceKey<Level>> changed) throws IOException {
+        SnapshotCodec.write(backupFile, snapshot.values());
+    }
+
+    private static void createIfMissing(File file, String role) {
+        if (file.exists()) {
+            return;
+        }
+        try {
+            // Create parent directories if needed
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+
+            file.createNewFile();
+            LOGGER.info("[GataBase] Created new {} database file: {}", role, file.getAbsolutePath());
+        } catch (IOException e) {
+            LOGGER.error("[GataBase] Failed to create {} database file: {}", role, file.getAbsolutePath(), e);
+        }
+    }
+}
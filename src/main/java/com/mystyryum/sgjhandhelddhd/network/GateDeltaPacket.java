@@ -0,0 +1,78 @@
+package com.mystyryum.sgjhandhelddhd.network;
+
+import com.mystyryum.sgjhandhelddhd.database.GateDelta;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Network packet sent from server → client with the changes to the player's gate list.
+ *
+ * The actual content is a {@link GateDelta}: either the whole list, or the gates
+ * added, updated and removed since the version the client last saw.
+ *
+ * Large deltas are sent as several pages ({@link GateDelta#paginate}), one per packet.
+ * The client only takes the delta's version once the page marked last has arrived.
+ */
+public class GateDeltaPacket implements CustomPacketPayload {
+
+    private static final int FIRST_PAGE = 1;
+    private static final int LAST_PAGE = 1 << 1;
+
+    /** The changes being transported; one page of the whole delta. */
+    private final GateDelta delta;
+
+    private final boolean first;
+    private final boolean last;
+
+    /**
+     * @param delta one page of a delta
+     * @param first whether this is the delta's first page
+     * @param last  whether this is the delta's last page (completion marker)
+     */
+    public GateDeltaPacket(GateDelta delta, boolean first, boolean last) {
+        this.delta = delta;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Unique packet identifier for NeoForge networking.
+     */
+    public static final Type<GateDeltaPacket> TYPE =
+            new Type<>(ResourceLocation.parse("sgjhandhelddhd:gate_delta_packet"));
+
+    /**
+     * Order MUST match GateDelta.deserialize().
+     */
+    public static void encode(FriendlyByteBuf buf, GateDeltaPacket packet) {
+        buf.writeByte((packet.first ? FIRST_PAGE : 0) | (packet.last ? LAST_PAGE : 0));
+        packet.delta.serialize(buf);
+    }
+
+    public static GateDeltaPacket decode(FriendlyByteBuf buf) {
+        int page = buf.readUnsignedByte();
+        return new GateDeltaPacket(GateDelta.deserialize(buf), (page & FIRST_PAGE) != 0, (page & LAST_PAGE) != 0);
+    }
+
+    public static final StreamCodec<FriendlyByteBuf, GateDeltaPacket> STREAM_CODEC =
+            StreamCodec.of(GateDeltaPacket::encode, GateDeltaPacket::decode);
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    public GateDelta getDelta() {
+        return delta;
+    }
+
+    public boolean isFirst() {
+        return first;
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mystyryum.sgjhandhelddhd.network;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Network packet sent from client → server when joining, asking for the changes
+ * to the player's gate list.
+ *
+ * <p>This packet contains:
+ *     • epoch of the client's cached gate list (0 if it has none)
+ *     • version of that list
+ *
+ * The server answers with a {@link GateDeltaPacket}.
+ */
+public class GateSyncRequestPacket implements CustomPacketPayload {
+
+    private final long epoch;
+    private final long version;
+
+    public GateSyncRequestPacket(long epoch, long version) {
+        this.epoch = epoch;
+        this.version = version;
+    }
+
+    /**
+     * Unique packet identifier for NeoForge networking.
+     */
+    public static final Type<GateSyncRequestPacket> TYPE =
+            new Type<>(ResourceLocation.parse("sgjhandhelddhd:gate_sync_request_packet"));
+
+    public static void encode(FriendlyByteBuf buf, GateSyncRequestPacket packet) {
+        buf.writeLong(packet.epoch);
+        buf.writeLong(packet.version);
+    }
+
+    public static GateSyncRequestPacket decode(FriendlyByteBuf buf) {
+        return new GateSyncRequestPacket(buf.readLong(), buf.readLong());
+    }
+
+    public static final StreamCodec<FriendlyByteBuf, GateSyncRequestPacket> STREAM_CODEC =
+            StreamCodec.of(GateSyncRequestPacket::encode, GateSyncRequestPacket::decode);
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
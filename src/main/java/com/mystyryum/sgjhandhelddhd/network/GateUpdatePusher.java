@@ -0,0 +1,227 @@
+package com.mystyryum.sgjhandhelddhd.network;
+
+import com.mystyryum.sgjhandhelddhd.Config;
+import com.mystyryum.sgjhandhelddhd.SGJHandheldDHD;
+import com.mystyryum.sgjhandhelddhd.database.GataBase;
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseBatchChangedEvent;
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseChangedEvent;
+import com.mystyryum.sgjhandhelddhd.database.GateDelta;
+import com.mystyryum.sgjhandhelddhd.database.GateObject;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.server.players.PlayerList;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes Gatabase changes to the online players they concern, so client gate lists stay
+ * current without relogging.
+ * <p>
+ * Change events only mark players as pending; they may be posted from any thread. At the end
+ * of each server tick every pending player gets one delta with everything that changed since
+ * the version last sent to them, so a burst of changes (a batch, an import) costs each player
+ * one delta and all sends happen on the server thread.
+ * <p>
+ * Deltas, including the one answering a join, are split into pages of at most
+ * {@link #PAGE_BYTES} and queued per player. Each tick a player receives at most
+ * {@link Config#SYNCPAGESPERTICK} pages, so a large list is spread over several ticks
+ * instead of being built and sent as one huge packet.
+ * <p>
+ * The audience of a change is worked out from the gate itself, before and after the change:
+ * its creator and whitelisted players, or everyone online for a public gate. Those are looked
+ * up in the server's player map, so a private gate never costs a pass over all players.
+ * Players outside the audience are not touched; the deltas they receive later are filtered
+ * by {@link GataBase#canSee} anyway.
+ */
+@EventBusSubscriber(modid = SGJHandheldDHD.MOD_ID)
+public final class GateUpdatePusher {
+
+    /** Size limit of one {@link GateDeltaPacket}, well below the custom payload limits. */
+    public static final int PAGE_BYTES = 32 * 1024;
+
+    /** Ticks a player has to wait between two sync requests that are answered. */
+    private static final int SYNC_REQUEST_COOLDOWN = 20;
+
+    /** Epoch and version last queued for each synced player. Server thread only. */
+    private static final Map<UUID, long[]> synced = new HashMap<>();
+
+    /** Server tick of each player's last answered sync request. Server thread only. */
+    private static final Map<UUID, Integer> lastRequests = new HashMap<>();
+
+    /** Pages not yet sent, per player. Server thread only. */
+    private static final Map<UUID, ArrayDeque<GateDeltaPacket>> outboxes = new HashMap<>();
+
+    /** Players with changes not yet sent. Filled from any thread. */
+    private static final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+
+    /** Set by changes to public gates, which concern every player. */
+    private static volatile boolean everyonePending = false;
+
+    private GateUpdatePusher() {}
+
+    /**
+     * Queues the changes since the given version for a player and starts pushing later changes
+     * to them. Must be called on the server thread.
+     * <p>
+     * A full list can be expensive to build, so requests are ignored while the answer to the
+     * player's previous one is still being sent, and within {@link #SYNC_REQUEST_COOLDOWN}
+     * ticks of it. A synced player keeps receiving changes regardless.
+     *
+     * @param player  the player
+     * @param epoch   epoch of the player's cached list, 0 if it has none
+     * @param version version of the player's cached list
+     */
+    public static void sync(ServerPlayer player, long epoch, long version) {
+        UUID id = player.getUUID();
+        int tick = player.getServer().getTickCount();
+        Integer lastRequest = lastRequests.get(id);
+        if (outboxes.containsKey(id) || (lastRequest != null && tick - lastRequest < SYNC_REQUEST_COOLDOWN)) {
+            SGJHandheldDHD.LOGGER.debug("Ignoring repeated gate sync request from {}", id);
+            return;
+        }
+        lastRequests.put(id, tick);
+
+        GateDelta delta = GataBase.syncSince(id, epoch, version);
+        SGJHandheldDHD.LOGGER.debug("Syncing gates to {}: {}", id, delta);
+
+        synced.put(id, new long[]{delta.getEpoch(), delta.getVersion()});
+        enqueue(player, delta);
+    }
+
+    @SubscribeEvent
+    public static void onGateChanged(GatabaseChangedEvent event) {
+        markAudience(event.getTargetGate());
+        markAudience(event.getUpdatedTarget());
+    }
+
+    @SubscribeEvent
+    public static void onGatesChanged(GatabaseBatchChangedEvent event) {
+        for (GatabaseChangedEvent change : event.getChanges()) {
+            onGateChanged(change);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(ServerTickEvent.Post event) {
+        PlayerList players = event.getServer().getPlayerList();
+        collectPending(players);
+        if (!outboxes.isEmpty()) {
+            sendPages(players, Config.SYNCPAGESPERTICK.get());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        synced.remove(event.getEntity().getUUID());
+        lastRequests.remove(event.getEntity().getUUID());
+        outboxes.remove(event.getEntity().getUUID());
+        pending.remove(event.getEntity().getUUID());
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        synced.clear();
+        lastRequests.clear();
+        outboxes.clear();
+        pending.clear();
+        everyonePending = false;
+    }
+
+    // === Helpers ===
+
+    private static void collectPending(PlayerList players) {
+        if (everyonePending) {
+            everyonePending = false;
+            pending.clear();
+            for (ServerPlayer player : players.getPlayers()) {
+                push(player);
+            }
+            return;
+        }
+
+        Iterator<UUID> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            UUID id = iterator.next();
+            iterator.remove();
+            ServerPlayer player = players.getPlayer(id);
+            if (player != null) {
+                push(player);
+            }
+        }
+    }
+
+    /**
+     * Sends up to {@code budget} queued pages to each player.
+     */
+    private static void sendPages(PlayerList players, int budget) {
+        Iterator<Map.Entry<UUID, ArrayDeque<GateDeltaPacket>>> iterator = outboxes.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, ArrayDeque<GateDeltaPacket>> outbox = iterator.next();
+            ServerPlayer player = players.getPlayer(outbox.getKey());
+            if (player == null) {
+                iterator.remove();
+                continue;
+            }
+            for (int i = 0; i < budget && !outbox.getValue().isEmpty(); i++) {
+                NetworkTools.sendToClient(outbox.getValue().poll(), player);
+            }
+            if (outbox.getValue().isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void enqueue(ServerPlayer player, GateDelta delta) {
+        List<GateDelta> pages = delta.paginate(PAGE_BYTES);
+        ArrayDeque<GateDeltaPacket> outbox = outboxes.computeIfAbsent(player.getUUID(), id -> new ArrayDeque<>());
+        for (int i = 0; i < pages.size(); i++) {
+            outbox.add(new GateDeltaPacket(pages.get(i), i == 0, i == pages.size() - 1));
+        }
+    }
+
+    private static void markAudience(GateObject gate) {
+        if (gate == null) {
+            return;
+        }
+        if (gate.isPublic()) {
+            everyonePending = true;
+            return;
+        }
+        if (gate.getCreator() != null) {
+            pending.add(gate.getCreator());
+        }
+        if (gate.getWhitelist() != null) {
+            pending.addAll(gate.getWhitelist());
+        }
+    }
+
+    /**
+     * Queues for a synced player what changed since their last delta; nothing if none of it is theirs.
+     */
+    private static void push(ServerPlayer player) {
+        long[] state = synced.get(player.getUUID());
+        if (state == null) {
+            // Not synced yet; their sync request will include these changes
+            return;
+        }
+
+        GateDelta delta = GataBase.syncSince(player.getUUID(), state[0], state[1]);
+        if (!delta.isFull() && delta.getChanges().isEmpty()) {
+            return;
+        }
+        state[0] = delta.getEpoch();
+        state[1] = delta.getVersion();
+        enqueue(player, delta);
+    }
+}
@@ -3,9 +3,12 @@ package com.mystyryum.sgjhandhelddhd.network;
 import com.mystyryum.sgjhandhelddhd.SGJHandheldDHD;
 import com.mystyryum.sgjhandhelddhd.SGJHandheldDHDClient;
 import com.mystyryum.sgjhandhelddhd.database.GataBase;
+import com.mystyryum.sgjhandhelddhd.database.GateAddress;
 import com.mystyryum.sgjhandhelddhd.database.GateObject;
 import com.mystyryum.sgjhandhelddhd.database.GateObjectPacket;
+import com.mystyryum.sgjhandhelddhd.database.GateWireCodec;
 
+import io.netty.handler.codec.DecoderException;
 import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.codec.StreamCodec;
@@ -21,7 +24,6 @@ import net.neoforged.neoforge.network.registration.NetworkRegistry;
 import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ================================================================
@@ -40,21 +42,23 @@ import java.util.concurrent.ConcurrentHashMap;
 public abstract class NetworkTools {
 
     /**
-     * A local map storing all packet types + their codecs.
+     * A local map storing the packet types + codecs of THIS instance.
      *
      * IMPORTANT:
      *  • This does NOT register packets with NeoForge immediately.
      *  • It ONLY stores them until the registration event occurs.
      *  • NeoForge requires registration during the
      *    RegisterPayloadHandlersEvent.
+     *  • Each subclass has its own map, so every packet is registered
+     *    once, with the subclass that handles it.
      *
      * Keys:   CustomPacketPayload.Type<?>   → identifies the packet
      * Values: StreamCodec<Buf, Packet>      → how to serialize it
      */
-    protected static final Map<CustomPacketPayload.Type<?>,
+    private final Map<CustomPacketPayload.Type<?>,
             StreamCodec<? super FriendlyByteBuf, ? extends CustomPacketPayload>>
             codecRegistry =
-            new ConcurrentHashMap<>();
+            new LinkedHashMap<>();
 
 
     // ---------------------------------------------------------------------
@@ -70,8 +74,9 @@ public abstract class NetworkTools {
      *
      * NOTE:
      *  This does NOT register with NeoForge yet, only stores it.
+     *  Call it from the subclass constructor.
      */
-    protected static <T extends CustomPacketPayload> void registerPacket(
+    protected <T extends CustomPacketPayload> void registerPacket(
             CustomPacketPayload.Type<T> type,
             StreamCodec<FriendlyByteBuf, T> codec
     ) {
@@ -87,7 +92,8 @@ public abstract class NetworkTools {
      * Called during NeoForge's networking registration phase.
      *
      * NeoForge supplies a PayloadRegistrar, which we must use to
-     * actually register all our stored packets.
+     * actually register all our stored packets. Each registered
+     * instance only registers its own packets, with itself as handler.
      *
      * @param event NeoForge registration event
      */
@@ -95,8 +101,8 @@ public abstract class NetworkTools {
     @SubscribeEvent
     public void onRegisterPayloadHandlers(RegisterPayloadHandlersEvent event) {
 
-        // Version "1" — matches your networking configuration
-        PayloadRegistrar registrar = event.registrar("1");
+        // Clients and servers must agree on the version, see GateWireCodec.PROTOCOL_VERSION
+        PayloadRegistrar registrar = event.registrar(GateWireCodec.PROTOCOL_VERSION);
 
         // Register each stored packet+codec pair
         for (var entry : codecRegistry.entrySet()) {
@@ -209,7 +215,10 @@ public abstract class NetworkTools {
      */
     public static class GPI {
 
-        /** The gate being acted on (always required) */
+        /**
+         * The gate being acted on (always required).
+         * For Edit and Remove the server only uses its id and acts on the stored gate with that id.
+         */
         GateObject target;
 
         /**
@@ -251,10 +260,9 @@ public abstract class NetworkTools {
          * <ul>
          *  <li>1. type (String)</li>
          *  <li>2. Admin (boolean)</li>
-         *  <li>3. hasTarget? (boolean)</li>
-         *  <li>4. target.serialize()</li>
-         *  <li>5. hasUpdateTarget? (boolean)</li>
-         *  <li>6. updateTarget.serialize()</li>
+         *  <li>3. GateWireCodec tables for both gates</li>
+         *  <li>4. hasTarget? (boolean), then the target</li>
+         *  <li>5. hasUpdateTarget? (boolean), then the updated target</li>
          *  </ul>
          */
         public void serialize(FriendlyByteBuf buf) {
@@ -262,16 +270,21 @@ public abstract class NetworkTools {
             buf.writeUtf(type);
             buf.writeBoolean(Admin);
 
+            List<GateObject> gates = new ArrayList<>(2);
+            if (target != null) gates.add(target);
+            if (updateTarget != null) gates.add(updateTarget);
+            GateWireCodec codec = GateWireCodec.writeTables(buf, gates);
+
             // Target GateObject
             buf.writeBoolean(target != null);
             if (target != null) {
-                target.serialize(buf);
+                codec.write(buf, target);
             }
 
             // Updated Version (Edit only)
             buf.writeBoolean(updateTarget != null);
             if (updateTarget != null) {
-                updateTarget.serialize(buf);
+                codec.write(buf, updateTarget);
             }
         }
 
@@ -283,15 +296,16 @@ public abstract class NetworkTools {
 
             String type = buf.readUtf();
             Boolean Admin = buf.readBoolean();
+            GateWireCodec codec = GateWireCodec.readTables(buf);
 
             GateObject target = null;
             if (buf.readBoolean()) {
-                target = GateObject.deserialize(buf);
+                target = codec.read(buf);
             }
 
             GateObject updateTarget = null;
             if (buf.readBoolean()) {
-                updateTarget = GateObject.deserialize(buf);
+                updateTarget = codec.read(buf);
             }
 
             return new GPI(target, updateTarget, type, Admin);
@@ -371,7 +385,11 @@ public abstract class NetworkTools {
          */
         public static DIP deserialize(FriendlyByteBuf buf) {
 
+            // Sent by clients: never allocate more than an address can hold
             int chevronLength = buf.readInt();
+            if (chevronLength < 0 || chevronLength > GateAddress.MAX_LENGTH) {
+                throw new DecoderException("Bad chevron count " + chevronLength + " in dial packet");
+            }
             int[] chev = new int[chevronLength];
 
             for (int i = 0; i < chevronLength; i++) {
@@ -394,9 +412,19 @@ public abstract class NetworkTools {
 
     /**
      * Handles packets related to sending Gate Object lists to clients.
+     * <p>
+     * Sync flow: when joining, the client reports the epoch and version of its cached
+     * list ({@link GateSyncRequestPacket}); the server answers with a {@link GateDeltaPacket}
+     * holding only what changed since then, or the whole list if it cannot tell. Later
+     * changes are pushed as they happen by {@link GateUpdatePusher}.
      */
     public static class GateSends extends NetworkTools {
 
+        public GateSends() {
+            registerPacket(GateSyncRequestPacket.TYPE, GateSyncRequestPacket.STREAM_CODEC);
+            registerPacket(GateDeltaPacket.TYPE, GateDeltaPacket.STREAM_CODEC);
+        }
+
         /**
          * Processes packets sent to the server or client.
          */
@@ -404,6 +432,21 @@ public abstract class NetworkTools {
         protected void onPayloadReceived(CustomPacketPayload payload,
                                          IPayloadContext context) {
 
+            // CLIENT → SERVER: a joining client asks for its changes
+            if (payload instanceof GateSyncRequestPacket request && context.flow().isServerbound()) {
+                if (context.player() instanceof ServerPlayer player) {
+                    LoginUpdate(player, request.getEpoch(), request.getVersion());
+                }
+                return;
+            }
+
+            // SERVER → CLIENT: apply the changes to the cached list
+            if (payload instanceof GateDeltaPacket deltaPacket && context.flow().isClientbound()) {
+                SGJHandheldDHDClient.ClientGateCache.applyPage(deltaPacket.getDelta(),
+                        deltaPacket.isFirst(), deltaPacket.isLast());
+                return;
+            }
+
             // We only care about GateObjectPacket
             if (payload instanceof GateObjectPacket gatePacket) {
 
@@ -430,14 +473,22 @@ public abstract class NetworkTools {
          * Helper method used when a player logs in and must receive
          * their list of gates from the server.
          *
-         * @param player Player being updated
-         * @param id     Player UUID used for filtering gate data
+         * @param player  Player being updated; their UUID filters the gate data
+         * @param epoch   Epoch of the client's cached list, 0 if it has none
+         * @param version Version of the client's cached list
          */
-        public static void LoginUpdate(ServerPlayer player, UUID id) {
-            List<GateObject> filteredGates = GataBase.getFilteredGates(id);
-            GateObjectPacket pkt = new GateObjectPacket(filteredGates);
+        public static void LoginUpdate(ServerPlayer player, long epoch, long version) {
+            // Also subscribes the player to live updates
+            GateUpdatePusher.sync(player, epoch, version);
+        }
 
-            NetworkTools.sendToClient(pkt, player);
+        /**
+         * Client side: asks the server for the changes to the cached gate list.
+         */
+        public static void requestSync() {
+            NetworkTools.sendToServer(new GateSyncRequestPacket(
+                    SGJHandheldDHDClient.ClientGateCache.getEpoch(),
+                    SGJHandheldDHDClient.ClientGateCache.getVersion()));
         }
     }
 
@@ -490,6 +541,16 @@ public abstract class NetworkTools {
                     GPI gpi = pkt.getGPI();                 // Extract packet data
                     UUID id = context.player().getUUID();   // UUID of sending player
 
+                    // Edits and removals act on the stored gate, never on the client's copy
+                    if (!"Add".equals(gpi.type)) {
+                        GateObject stored = GataBase.getGate(gpi.target.getId());
+                        if (stored == null) {
+                            SGJHandheldDHD.LOGGER.warn("GPI {} from {} names unknown gate #{}", gpi.type, id, gpi.target.getId());
+                            return;
+                        }
+                        gpi.target = stored;
+                    }
+
                     // SAFETY FILTER:
                     // If the gate is admin-created OR a default gate,
                     // TODO: potentially ad an admin check
@@ -570,16 +631,35 @@ public abstract class NetworkTools {
 
 
     /**
-     * Handles packets related to dialing a gate (currently empty).
+     * Handles packets related to dialing a gate.
      *
+     * Currently only validates the dialled address against the Gatabase.
      * Extend this class later with your actual dial-handling logic.
      */
     public static class DialSends extends NetworkTools {
 
+        public DialSends() {
+            registerPacket(DIPPacket.TYPE, DIPPacket.STREAM_CODEC);
+        }
+
         @Override
         protected void onPayloadReceived(CustomPacketPayload payload,
                                          IPayloadContext context) {
-            // TODO: implement dial logic
+
+            if (payload instanceof DIPPacket pkt && context.flow().isServerbound()) {
+
+                DIP dip = pkt.getDIP();
+
+                // Packed-address lookup: no table scan, no int[] hashing
+                GateObject destination = GataBase.findGateByAddress(dip.chev);
+                if (destination == null) {
+                    SGJHandheldDHD.LOGGER.warn("Player {} dialled unknown address {}",
+                            context.player().getUUID(), Arrays.toString(dip.chev));
+                    return;
+                }
+
+                // TODO: implement dial logic
+            }
         }
 
         @Override
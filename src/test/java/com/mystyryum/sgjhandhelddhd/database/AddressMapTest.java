@@ -0,0 +1,84 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AddressMapTest {
+
+    @Test
+    void mapsAndRemovesAddresses() {
+        long abydos = GateAddress.pack(new int[]{26, 6, 14, 31, 11, 29});
+        long chulak = GateAddress.pack(new int[]{8, 1, 22, 14, 36, 19});
+
+        AddressMap<String> map = AddressMap.<String>empty().with(abydos, "Abydos").with(chulak, "Chulak");
+        assertEquals(2, map.size());
+        assertEquals("Abydos", map.get(abydos));
+        assertEquals("Chulak", map.get(chulak));
+
+        AddressMap<String> removed = map.without(abydos, map.get(abydos));
+        assertNull(removed.get(abydos));
+        assertEquals("Chulak", removed.get(chulak));
+        assertEquals(1, removed.size());
+
+        // Older versions are never changed
+        assertEquals("Abydos", map.get(abydos));
+    }
+
+    @Test
+    void removesOnlyTheExpectedValue() {
+        long address = GateAddress.pack(new int[]{1, 2, 3, 4, 5, 6});
+        AddressMap<String> map = AddressMap.<String>empty().with(address, "first");
+
+        // An equal but different value is not the mapped one
+        assertSame(map, map.without(address, new String("first")));
+        assertEquals(0, map.without(address, map.get(address)).size());
+    }
+
+    @Test
+    void neverMapsTheInvalidAddress() {
+        AddressMap<String> map = AddressMap.empty();
+        assertThrows(IllegalArgumentException.class, () -> map.with(GateAddress.INVALID, "bad"));
+        assertNull(map.get(GateAddress.INVALID));
+        assertSame(map, map.without(GateAddress.INVALID, "bad"));
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomChanges() {
+        Random random = new Random(7);
+        Map<Long, Integer> expected = new HashMap<>();
+        AddressMap<Integer> map = AddressMap.empty();
+
+        for (int step = 0; step < 20_000; step++) {
+            int[] chevrons = new int[1 + random.nextInt(3)];
+            for (int i = 0; i < chevrons.length; i++) {
+                chevrons[i] = random.nextInt(39);
+            }
+            long address = GateAddress.pack(chevrons);
+            if (random.nextInt(3) == 0) {
+                Integer value = map.get(address);
+                if (value != null) {
+                    map = map.without(address, value);
+                }
+                expected.remove(address);
+            } else {
+                map = map.with(address, step);
+                expected.put(address, step);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertFalse(map.containsKey(GateAddress.pack(new int[]{38, 38, 38, 38})));
+    }
+}
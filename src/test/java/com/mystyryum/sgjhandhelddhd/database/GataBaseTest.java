@@ -0,0 +1,207 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.mystyryum.sgjhandhelddhd.database.GateJsonReaderTest.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GataBaseTest {
+
+    private static final UUID ALICE = new UUID(0, 1);
+    private static final UUID BOB = new UUID(0, 2);
+
+    @TempDir
+    File directory;
+
+    @AfterEach
+    void closeDatabase() {
+        GataBase.shutdown();
+    }
+
+    @Test
+    void loadsFromTheActiveStore() throws IOException {
+        new SnapshotGateStore(mainFile(), backupFile()).save(table("Abydos", "Chulak"), Set.of());
+
+        open();
+
+        assertEquals(List.of("Abydos", "Chulak"), names());
+    }
+
+    @Test
+    void loadsFromWhicheverStoreSavedLast() throws IOException {
+        File main = mainFile();
+        new SnapshotGateStore(main, backupFile()).save(table("Abydos"), Set.of());
+        main.setLastModified(System.currentTimeMillis() - 60_000);
+        ShardStore shards = new ShardStore(new File(directory, "shards"), new File(directory, "backup-shards"));
+        shards.save(table("Chulak", "Dakara"), Set.of());
+
+        open();
+
+        // The sharded copy is newer than the active single-file store
+        assertEquals(List.of("Chulak", "Dakara"), names());
+    }
+
+    @Test
+    void appliesABatchAsOneVersionAndSkipsFailingMutations() {
+        open();
+        GataBase.applyBatch(List.of(GateMutation.add(gate("Abydos", 1)), GateMutation.add(gate("Chulak", 2))));
+        long chulak = GataBase.getSnapshot().get("Chulak").getId();
+        long version = GataBase.getSnapshot().getVersion();
+
+        GataBase.BatchResult result = GataBase.applyBatch(List.of(
+                GateMutation.add(gate("ABYDOS", 3)),
+                GateMutation.add(gate("Dakara", 4)),
+                GateMutation.update(chulak, gate("Chulak II", 2)),
+                GateMutation.remove(999)));
+
+        assertEquals(2, result.applied());
+        assertEquals(2, result.rejected().size());
+        assertEquals(version + 1, GataBase.getSnapshot().getVersion());
+        assertEquals(List.of("Abydos", "Chulak II", "Dakara"), names());
+        assertEquals(chulak, GataBase.getSnapshot().get("Chulak II").getId());
+    }
+
+    @Test
+    void keepsAppliedBatchesAcrossRestarts() {
+        open();
+        GataBase.applyBatch(List.of(GateMutation.add(gate("Abydos", 1)), GateMutation.add(gate("Chulak", 2))))
+                .durable().join();
+        GataBase.shutdown();
+
+        open();
+
+        assertEquals(List.of("Abydos", "Chulak"), names());
+    }
+
+    @Test
+    void importsValidNdjsonLines() throws IOException {
+        File source = new File(directory, "gates.ndjson");
+        Files.write(source.toPath(), List.of(
+                entry("Abydos", 1),
+                "{\"name\":\"Broken\"",
+                entry("Chulak", 2),
+                "",
+                entry("Copy", 2)), StandardCharsets.UTF_8);
+        open();
+
+        // The broken line is invalid and the copy reuses Chulak's address
+        assertEquals(2, GataBase.importNdjson(source));
+        assertEquals(List.of("Abydos", "Chulak"), names());
+    }
+
+    @Test
+    void commitsATransactionAsAWhole() {
+        open();
+        GataBase.applyBatch(List.of(GateMutation.add(gate("Abydos", 1)), GateMutation.add(gate("Chulak", 2))));
+        GateTable before = GataBase.getSnapshot();
+        GateObject abydos = before.get("Abydos");
+        GateObject chulak = before.get("Chulak");
+
+        // Swapping two addresses only works if uniqueness is checked on the final state
+        GateTransaction.Result result = new GateTransaction(ALICE)
+                .edit(abydos, gate("Abydos", 2))
+                .edit(chulak, gate("Chulak", 1))
+                .add(gate("Dakara", 3))
+                .commit();
+
+        assertTrue(result.committed());
+        GateTable after = GataBase.getSnapshot();
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(2, after.get("Abydos").getChevrons()[0]);
+        assertEquals(1, after.get("Chulak").getChevrons()[0]);
+        assertEquals(ALICE, after.get("Dakara").getCreator());
+    }
+
+    @Test
+    void refusedTransactionLeavesTheTableUnchanged() {
+        open();
+        GataBase.applyBatch(List.of(GateMutation.add(gate("Abydos", 1)), GateMutation.add(gate("Chulak", 2))));
+        GateTable before = GataBase.getSnapshot();
+
+        // Dakara and the rename are fine; the new gate clashes with Chulak's address
+        GateTransaction.Result result = new GateTransaction(ALICE)
+                .add(gate("Dakara", 3))
+                .edit(before.get("Abydos"), gate("Abydos II", 1))
+                .add(gate("Copy", 2))
+                .commit();
+
+        assertFalse(result.committed());
+        assertEquals(1, result.problems().size());
+        assertSame(before, GataBase.getSnapshot());
+        assertEquals(List.of("Abydos", "Chulak"), names());
+
+        // Only the creator (or an admin) may change a gate
+        assertFalse(new GateTransaction(BOB).remove(before.get("Abydos")).commit().committed());
+        assertSame(before, GataBase.getSnapshot());
+    }
+
+    @Test
+    void refusedTransactionUsesUpNoIds() {
+        open();
+        GataBase.applyBatch(List.of(GateMutation.add(gate("Abydos", 1)), GateMutation.add(gate("Chulak", 2))));
+        long highest = Math.max(GataBase.getSnapshot().get("Abydos").getId(), GataBase.getSnapshot().get("Chulak").getId());
+
+        // Two new gates that only clash with each other
+        assertFalse(new GateTransaction(ALICE)
+                .add(gate("Dakara", 3))
+                .add(gate("Tollana", 3))
+                .commit()
+                .committed());
+
+        assertTrue(new GateTransaction(ALICE).add(gate("Dakara", 3)).commit().committed());
+        assertEquals(highest + 1, GataBase.getSnapshot().get("Dakara").getId());
+    }
+
+    private void open() {
+        new GataBase(mainFile(), backupFile());
+        GataBase.open();
+    }
+
+    private File mainFile() {
+        return new File(directory, "GataBase.json");
+    }
+
+    private File backupFile() {
+        return new File(directory, "backup.json");
+    }
+
+    private static List<String> names() {
+        List<String> names = new ArrayList<>();
+        for (GateObject gate : GataBase.getSnapshot().values()) {
+            names.add(gate.getName());
+        }
+        names.sort(null);
+        return names;
+    }
+
+    static GateTable table(String... names) {
+        GateTable.Builder builder = GateTable.EMPTY.toBuilder();
+        for (int i = 0; i < names.length; i++) {
+            GateObject gate = gate(names[i], i + 1);
+            gate.setId(i + 1);
+            builder.put(gate);
+        }
+        return builder.build(1);
+    }
+
+    /**
+     * @return a valid nine-chevron gate of {@code ALICE} whose address starts with {@code firstGlyph}
+     */
+    static GateObject gate(String name, int firstGlyph) {
+        return GateTableTest.gate(0, name, ALICE, firstGlyph, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+}
@@ -0,0 +1,108 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GataJournalTest {
+
+    private static final Gson GSON = new Gson();
+
+    @TempDir
+    File directory;
+
+    @Test
+    void readsBackEntriesAndGroupsInOrder() throws IOException {
+        File file = new File(directory, "GataBase.journal");
+        GataJournal journal = new GataJournal(file, GSON);
+        journal.append(GateMutation.remove(1));
+        journal.appendAll(List.of(GateMutation.remove(2), GateMutation.remove(3)));
+        journal.close();
+
+        GataJournal reopened = new GataJournal(file, GSON);
+        assertEquals(List.of(1L, 2L, 3L), targets(reopened.readAll()));
+        assertEquals(3, reopened.size());
+    }
+
+    @Test
+    void skipsEntryWithBadChecksum() throws IOException {
+        File file = new File(directory, "GataBase.journal");
+        GataJournal journal = new GataJournal(file, GSON);
+        journal.append(GateMutation.remove(1));
+        journal.append(GateMutation.remove(2));
+        journal.append(GateMutation.remove(3));
+        journal.close();
+
+        // Flip a digit in the second entry's JSON; its checksum no longer matches
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        lines.set(1, lines.get(1).replace(":2", ":7"));
+        Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+
+        assertEquals(List.of(1L, 3L), targets(new GataJournal(file, GSON).readAll()));
+    }
+
+    @Test
+    void dropsTornLastEntry() throws IOException {
+        File file = new File(directory, "GataBase.journal");
+        GataJournal journal = new GataJournal(file, GSON);
+        journal.append(GateMutation.remove(1));
+        journal.append(GateMutation.remove(2));
+        journal.close();
+
+        truncate(file, 5);
+
+        assertEquals(List.of(1L), targets(new GataJournal(file, GSON).readAll()));
+    }
+
+    @Test
+    void dropsTornGroupAsAWhole() throws IOException {
+        File file = new File(directory, "GataBase.journal");
+        GataJournal journal = new GataJournal(file, GSON);
+        journal.append(GateMutation.remove(1));
+        journal.appendAll(List.of(GateMutation.remove(2), GateMutation.remove(3), GateMutation.remove(4)));
+        journal.close();
+
+        // Cut the group line in the middle, after its first mutation
+        truncate(file, 40);
+
+        assertEquals(List.of(1L), targets(new GataJournal(file, GSON).readAll()));
+    }
+
+    @Test
+    void keepsRotatedEntriesUntilDiscarded() throws IOException {
+        File file = new File(directory, "GataBase.journal");
+        GataJournal journal = new GataJournal(file, GSON);
+        journal.append(GateMutation.remove(1));
+        journal.rotate();
+        journal.append(GateMutation.remove(2));
+        journal.close();
+
+        // A crash before the snapshot was written: both files are replayed, rotated one first
+        assertEquals(List.of(1L, 2L), targets(new GataJournal(file, GSON).readAll()));
+
+        journal.discardRotated();
+        GataJournal reopened = new GataJournal(file, GSON);
+        assertEquals(List.of(2L), targets(reopened.readAll()));
+        assertTrue(file.exists());
+    }
+
+    private static List<Long> targets(List<GateMutation> mutations) {
+        return mutations.stream().map(GateMutation::getTargetId).toList();
+    }
+
+    private static void truncate(File file, int bytes) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - bytes);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class GateAddressTest {
+
+    @Test
+    void unpacksWhatWasPacked() {
+        Random random = new Random(42);
+        for (int length = 0; length <= GateAddress.MAX_LENGTH; length++) {
+            for (int round = 0; round < 100; round++) {
+                int[] chevrons = new int[length];
+                for (int i = 0; i < length; i++) {
+                    chevrons[i] = random.nextInt(39);
+                }
+                long packed = GateAddress.pack(chevrons);
+                assertNotEquals(GateAddress.INVALID, packed);
+                assertEquals(length, GateAddress.length(packed));
+                assertArrayEquals(chevrons, GateAddress.unpack(packed));
+            }
+        }
+    }
+
+    @Test
+    void readsSingleChevrons() {
+        long packed = GateAddress.pack(new int[]{38, 0, 17, 5});
+        assertEquals(38, GateAddress.chevron(packed, 0));
+        assertEquals(0, GateAddress.chevron(packed, 1));
+        assertEquals(17, GateAddress.chevron(packed, 2));
+        assertEquals(5, GateAddress.chevron(packed, 3));
+    }
+
+    @Test
+    void keepsLengthsApart() {
+        // Trailing zero chevrons only differ in the length nibble
+        assertNotEquals(GateAddress.pack(new int[]{0}), GateAddress.pack(new int[]{0, 0}));
+        assertNotEquals(GateAddress.pack(new int[0]), GateAddress.pack(new int[]{0}));
+    }
+
+    @Test
+    void rejectsAddressesThatDoNotFit() {
+        assertEquals(GateAddress.INVALID, GateAddress.pack(null));
+        assertEquals(GateAddress.INVALID, GateAddress.pack(new int[GateAddress.MAX_LENGTH + 1]));
+        assertEquals(GateAddress.INVALID, GateAddress.pack(new int[]{1, -1}));
+        assertEquals(GateAddress.INVALID, GateAddress.pack(new int[]{64}));
+    }
+}
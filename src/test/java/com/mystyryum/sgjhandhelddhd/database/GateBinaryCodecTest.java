@@ -0,0 +1,108 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GateBinaryCodecTest {
+
+    @Test
+    void roundTripsEveryField() throws IOException {
+        List<GateObject> gates = sampleGates();
+
+        List<GateObject> decoded = GateBinaryCodec.decode(GateBinaryCodec.encode(gates));
+
+        assertEquals(gates.size(), decoded.size());
+        for (int i = 0; i < gates.size(); i++) {
+            assertSameGate(gates.get(i), decoded.get(i));
+        }
+    }
+
+    @Test
+    void lazyDecodeDefersListsUntilRead() throws IOException {
+        List<GateObject> gates = sampleGates();
+        byte[] payload = GateBinaryCodec.encode(gates);
+
+        List<GateObject> decoded = GateBinaryCodec.decode(direct(payload), true);
+
+        // The first sample gate has lists, so they stay in the buffer
+        assertNotNull(decoded.get(0).deferredLists());
+        for (int i = 0; i < gates.size(); i++) {
+            assertSameGate(gates.get(i), decoded.get(i));
+        }
+        assertNull(decoded.get(0).deferredLists());
+    }
+
+    @Test
+    void reEncodesUntouchedLazyGatesByteForByte() throws IOException {
+        byte[] payload = GateBinaryCodec.encode(sampleGates());
+
+        List<GateObject> decoded = GateBinaryCodec.decode(direct(payload), true);
+
+        assertArrayEquals(payload, GateBinaryCodec.encode(decoded));
+    }
+
+    @Test
+    void rejectsDamagedPayloads() {
+        byte[] payload = GateBinaryCodec.encode(sampleGates());
+
+        assertThrows(IOException.class, () -> GateBinaryCodec.decode(Arrays.copyOf(payload, payload.length - 3)));
+
+        byte[] badMagic = payload.clone();
+        badMagic[0] ^= 1;
+        assertThrows(IOException.class, () -> GateBinaryCodec.decode(badMagic));
+    }
+
+    private static List<GateObject> sampleGates() {
+        UUID creator = new UUID(1, 2);
+        List<UUID> whitelist = new ArrayList<>(List.of(new UUID(3, 4), new UUID(5, 6)));
+        List<UUID> blacklist = new ArrayList<>(List.of(new UUID(7, 8)));
+
+        GateObject listed = new GateObject("Abydos", GateInterner.dimension("minecraft:overworld"), false,
+                new int[]{26, 6, 14, 31, 11, 29}, true, true, whitelist, blacklist, false, creator, false);
+        listed.setId(1);
+
+        GateObject open = new GateObject("Chulak", GateInterner.dimension("minecraft:the_nether"), true,
+                new int[]{8, 1, 22, 14, 36, 19, 0, 4}, false, false, new ArrayList<>(), new ArrayList<>(), true, creator, true);
+        open.setId(2);
+
+        // Legacy data: no dimension, no creator, an address that does not pack
+        GateObject legacy = new GateObject("Legacy", null, false,
+                new int[]{99, 1}, false, false, new ArrayList<>(), new ArrayList<>(), false, null, false);
+        legacy.setId(3);
+
+        return List.of(listed, open, legacy);
+    }
+
+    private static ByteBuffer direct(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length);
+        buffer.put(payload).flip();
+        return buffer;
+    }
+
+    static void assertSameGate(GateObject expected, GateObject actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDimension(), actual.getDimension());
+        assertEquals(expected.isPublic(), actual.isPublic());
+        assertArrayEquals(expected.getChevrons(), actual.getChevrons());
+        assertEquals(expected.hasIris(), actual.hasIris());
+        assertEquals(expected.isDefensive(), actual.isDefensive());
+        assertEquals(expected.getWhitelist(), actual.getWhitelist());
+        assertEquals(expected.getBlacklist(), actual.getBlacklist());
+        assertEquals(expected.isDefaultGate(), actual.isDefaultGate());
+        assertEquals(expected.getCreator(), actual.getCreator());
+        assertEquals(expected.getAdmin(), actual.getAdmin());
+    }
+}
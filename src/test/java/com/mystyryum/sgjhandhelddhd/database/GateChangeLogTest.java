@@ -0,0 +1,127 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseChangedEvent.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GateChangeLogTest {
+
+    private static final UUID CREATOR = new UUID(0, 1);
+    private static final Predicate<CompactGate> EVERYTHING = gate -> true;
+
+    private GateChangeLog log;
+    private GateTable table;
+
+    @BeforeEach
+    void setUp() {
+        log = new GateChangeLog();
+        table = GateTable.EMPTY;
+        log.reset(table.getVersion());
+    }
+
+    @Test
+    void sendsOneNetChangePerGate() {
+        publish(10, builder -> {
+            builder.put(gate(1, "Abydos", false));
+            builder.put(gate(2, "Chulak", false));
+        });
+        long afterAdd = table.getVersion();
+        publish(10, builder -> builder.put(gate(1, "Abydos Prime", false)));
+        publish(10, builder -> builder.remove(2));
+
+        GateDelta delta = log.since(log.getEpoch(), afterAdd, EVERYTHING);
+        assertNotNull(delta);
+        assertFalse(delta.isFull());
+        assertEquals(table.getVersion(), delta.getVersion());
+        assertEquals(List.of("UPDATE 1 Abydos Prime", "REMOVE 2"), describe(delta));
+
+        // From the start, Chulak was added and removed again, so it does not show up at all
+        assertEquals(List.of("ADD 1 Abydos Prime"), describe(log.since(log.getEpoch(), 0, EVERYTHING)));
+    }
+
+    @Test
+    void followsVisibilityChanges() {
+        Predicate<CompactGate> publicOnly = CompactGate::isPublic;
+        publish(10, builder -> builder.put(gate(1, "Abydos", false)));
+        long hidden = table.getVersion();
+        publish(10, builder -> builder.put(gate(1, "Abydos", true)));
+        long shown = table.getVersion();
+        assertEquals(List.of("ADD 1 Abydos"), describe(log.since(log.getEpoch(), hidden, publicOnly)));
+
+        publish(10, builder -> builder.put(gate(1, "Abydos", false)));
+        assertEquals(List.of("REMOVE 1"), describe(log.since(log.getEpoch(), shown, publicOnly)));
+        // Hidden before and after: nothing to send
+        assertTrue(log.since(log.getEpoch(), hidden, publicOnly).getChanges().isEmpty());
+    }
+
+    @Test
+    void coversOnlyItsWindow() {
+        publish(2, builder -> builder.put(gate(1, "Abydos", false)));
+        long first = table.getVersion();
+        publish(2, builder -> builder.put(gate(2, "Chulak", false)));
+        publish(2, builder -> builder.put(gate(3, "Dakara", false)));
+
+        assertNull(log.since(log.getEpoch(), 0, EVERYTHING));
+        assertEquals(List.of("ADD 2 Chulak", "ADD 3 Dakara"), describe(log.since(log.getEpoch(), first, EVERYTHING)));
+        assertTrue(log.since(log.getEpoch(), table.getVersion(), EVERYTHING).getChanges().isEmpty());
+    }
+
+    @Test
+    void dropsTheWholeWindowForOversizedChanges() {
+        publish(2, builder -> {
+            builder.put(gate(1, "Abydos", false));
+            builder.put(gate(2, "Chulak", false));
+            builder.put(gate(3, "Dakara", false));
+        });
+
+        assertNull(log.since(log.getEpoch(), 0, EVERYTHING));
+        assertNotNull(log.since(log.getEpoch(), table.getVersion(), EVERYTHING));
+    }
+
+    @Test
+    void refusesOtherEpochsAndFutureVersions() {
+        publish(10, builder -> builder.put(gate(1, "Abydos", false)));
+        long epoch = log.getEpoch();
+
+        assertNull(log.since(epoch + 1, 0, EVERYTHING));
+        assertNull(log.since(epoch, table.getVersion() + 1, EVERYTHING));
+
+        log.reset(table.getVersion());
+        assertNull(log.since(epoch, 0, EVERYTHING));
+    }
+
+    private void publish(int capacity, Consumer<GateTable.Builder> change) {
+        GateTable.Builder builder = table.toBuilder();
+        change.accept(builder);
+        GateTable published = builder.build(table.getVersion() + 1);
+        log.record(table, published, builder.getTouchedIds(), capacity);
+        table = published;
+    }
+
+    private static GateObject gate(long id, String name, boolean isPublic) {
+        GateObject gate = new GateObject(name, GateInterner.dimension("minecraft:overworld"), isPublic,
+                new int[]{(int) id, 2, 3, 4, 5, 6}, false, false, new ArrayList<>(), new ArrayList<>(), false, CREATOR, false);
+        gate.setId(id);
+        return gate;
+    }
+
+    private static List<String> describe(GateDelta delta) {
+        List<String> changes = new ArrayList<>();
+        for (GateDelta.Change change : delta.getChanges()) {
+            changes.add(change.getType() + " " + change.getId() + (change.getType() == ChangeType.REMOVE ? "" : " " + change.getGate().getName()));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.mystyryum.sgjhandhelddhd.database.GataBase.GatabaseChangedEvent.ChangeType;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GateDeltaTest {
+
+    @Test
+    void pagesStayWithinTheLimitAndKeepEveryChange() {
+        List<GateDelta.Change> changes = new ArrayList<>();
+        for (GateObject gate : GateWireCodecTest.randomGates(new Random(9), 2_000)) {
+            changes.add(new GateDelta.Change(ChangeType.UPDATE, gate.getId(), gate));
+            if (gate.getId() % 5 == 0) {
+                changes.add(new GateDelta.Change(ChangeType.REMOVE, gate.getId() + 1, null));
+            }
+        }
+        GateDelta delta = new GateDelta(42, 7, false, changes);
+
+        List<GateDelta> pages = delta.paginate(4 * 1024);
+
+        assertTrue(pages.size() > 1);
+        List<Long> ids = new ArrayList<>();
+        for (GateDelta page : pages) {
+            FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+            page.serialize(buf);
+            assertTrue(buf.readableBytes() <= 4 * 1024, "page of " + buf.readableBytes() + " bytes");
+
+            GateDelta decoded = GateDelta.deserialize(buf);
+            assertEquals(42, decoded.getEpoch());
+            assertEquals(7, decoded.getVersion());
+            for (GateDelta.Change change : decoded.getChanges()) {
+                ids.add(change.getId());
+            }
+        }
+        assertEquals(changes.stream().map(GateDelta.Change::getId).toList(), ids);
+    }
+
+    @Test
+    void givesAnOversizedGateItsOwnPage() {
+        List<GateObject> gates = GateWireCodecTest.randomGates(new Random(1), 3);
+        gates.get(1).setName("x".repeat(2_000));
+        GateDelta delta = GateDelta.full(1, 1, gates);
+
+        List<GateDelta> pages = delta.paginate(1_024);
+
+        assertEquals(3, pages.size());
+        for (GateDelta page : pages) {
+            assertTrue(page.isFull());
+            assertEquals(1, page.getChanges().size());
+        }
+    }
+
+    @Test
+    void keepsOnePageForAnEmptyDelta() {
+        List<GateDelta> pages = new GateDelta(1, 5, false, List.of()).paginate(1_024);
+
+        assertEquals(1, pages.size());
+        assertTrue(pages.get(0).getChanges().isEmpty());
+        assertEquals(5, pages.get(0).getVersion());
+    }
+}
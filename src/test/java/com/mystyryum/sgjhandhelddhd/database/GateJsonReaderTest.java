@@ -0,0 +1,56 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GateJsonReaderTest {
+
+    @Test
+    void passesValidEntriesAndSkipsInvalidOnes() throws IOException {
+        String json = "[" + entry("Abydos", 1)
+                + ",{\"name\":\"NoCreator\",\"dimension\":\"minecraft:overworld\",\"chevrons\":[1,2,3,4,5,6,7,8,9],\"whitelist\":[],\"blacklist\":[]}"
+                + "," + entry("BadUuid", 2).replace("00000000-0000-0000-0000-000000000001", "not-a-uuid")
+                + ",42"
+                + "," + entry("Chulak", 3) + "]";
+
+        List<GateObject> gates = new ArrayList<>();
+        GateJsonReader.Result result = GateJsonReader.read(new StringReader(json), gates::add);
+
+        assertEquals(List.of("Abydos", "Chulak"), gates.stream().map(GateObject::getName).toList());
+        assertEquals(2, result.getAccepted());
+        assertEquals(3, result.getRejected().size());
+        assertEquals("NoCreator", result.rejectedAsArray().get(0).getAsJsonObject().get("name").getAsString());
+    }
+
+    @Test
+    void readsEmptyInputAsNoGates() throws IOException {
+        List<GateObject> gates = new ArrayList<>();
+
+        assertEquals(0, GateJsonReader.read(new StringReader("null"), gates::add).getAccepted());
+        assertEquals(0, GateJsonReader.read(new StringReader("[]"), gates::add).getAccepted());
+        assertTrue(gates.isEmpty());
+    }
+
+    @Test
+    void rejectsTextThatIsNotAGateList() {
+        assertThrows(JsonParseException.class, () -> GateJsonReader.read(new StringReader(entry("Abydos", 1)), gate -> {}));
+    }
+
+    /**
+     * @return the JSON of a valid nine-chevron player gate whose address starts with {@code firstGlyph}
+     */
+    static String entry(String name, int firstGlyph) {
+        return "{\"name\":\"" + name + "\",\"dimension\":\"minecraft:overworld\","
+                + "\"chevrons\":[" + firstGlyph + ",2,3,4,5,6,7,8,9],\"whitelist\":[],\"blacklist\":[],"
+                + "\"creator\":\"00000000-0000-0000-0000-000000000001\"}";
+    }
+}
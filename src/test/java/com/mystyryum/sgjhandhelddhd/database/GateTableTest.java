@@ -0,0 +1,83 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GateTableTest {
+
+    private static final UUID ALICE = new UUID(0, 1);
+    private static final UUID BOB = new UUID(0, 2);
+
+    @Test
+    void buildingANewVersionLeavesTheOldOneAlone() {
+        GateTable.Builder builder = GateTable.EMPTY.toBuilder();
+        builder.put(gate(1, "Abydos", ALICE, 1, 2, 3, 4, 5, 6));
+        builder.put(gate(2, "Chulak", ALICE, 6, 5, 4, 3, 2, 1));
+        GateTable first = builder.build(1);
+
+        GateTable.Builder next = first.toBuilder();
+        next.remove(1);
+        next.put(gate(2, "Dakara", BOB, 6, 5, 4, 3, 2, 1));
+        GateTable second = next.build(2);
+
+        assertEquals(2, first.size());
+        assertEquals("Abydos", first.get(1).getName());
+        assertEquals("Chulak", first.getByAddress(GateAddress.pack(new int[]{6, 5, 4, 3, 2, 1})).getName());
+        assertEquals(2, first.getByCreator(ALICE).size());
+
+        assertEquals(1, second.size());
+        assertNull(second.get(1));
+        assertNull(second.get("Chulak"));
+        assertEquals("Dakara", second.get("Dakara").getName());
+        assertTrue(second.getByCreator(ALICE).isEmpty());
+        assertEquals(1, second.getByCreator(BOB).size());
+    }
+
+    @Test
+    void checksUniquenessAgainstTheIndexes() {
+        GateTable.Builder builder = GateTable.EMPTY.toBuilder();
+        GateObject abydos = gate(1, "Abydos", ALICE, 1, 2, 3, 4, 5, 6);
+        builder.put(abydos);
+        GateTable table = builder.build(1);
+
+        assertEquals(1, table.conflicts(gate(0, "ABYDOS", BOB, 9, 9, 9, 9, 9, 9), null));
+        assertEquals(2, table.conflicts(gate(0, "Other", BOB, 1, 2, 3, 4, 5, 6), null));
+        assertEquals(3, table.conflicts(gate(0, "abydos", BOB, 1, 2, 3, 4, 5, 6), null));
+        assertEquals(0, table.conflicts(gate(1, "Abydos", ALICE, 1, 2, 3, 4, 5, 6), abydos));
+    }
+
+    @Test
+    void listsWhatAPlayerMaySee() {
+        GateTable.Builder builder = GateTable.EMPTY.toBuilder();
+        builder.put(gate(1, "Own", ALICE, 1, 2, 3, 4, 5, 6));
+        GateObject shared = gate(2, "Shared", BOB, 2, 3, 4, 5, 6, 7);
+        shared.getWhitelist().add(ALICE);
+        builder.put(shared);
+        GateObject open = gate(3, "Open", BOB, 3, 4, 5, 6, 7, 8);
+        open.setPublic(true);
+        builder.put(open);
+        builder.put(gate(4, "Hidden", BOB, 4, 5, 6, 7, 8, 9));
+        GateTable table = builder.build(1);
+
+        List<String> names = new ArrayList<>();
+        for (GateObject gate : table.getVisibleTo(ALICE)) {
+            names.add(gate.getName());
+        }
+        names.sort(null);
+        assertEquals(List.of("Open", "Own", "Shared"), names);
+    }
+
+    static GateObject gate(long id, String name, UUID creator, int... chevrons) {
+        GateObject gate = new GateObject(name, GateInterner.dimension("minecraft:overworld"), false, chevrons,
+                false, false, new ArrayList<>(), new ArrayList<>(), false, creator, false);
+        gate.setId(id);
+        return gate;
+    }
+}
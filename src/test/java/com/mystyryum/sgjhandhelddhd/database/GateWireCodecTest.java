@@ -0,0 +1,99 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.level.Level;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GateWireCodecTest {
+
+    @Test
+    void roundTripsGatesThroughSharedTables() {
+        List<GateObject> gates = randomGates(new Random(3), 50);
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+
+        GateWireCodec writer = GateWireCodec.writeTables(buf, gates);
+        for (GateObject gate : gates) {
+            writer.write(buf, gate);
+        }
+
+        GateWireCodec reader = GateWireCodec.readTables(buf);
+        for (GateObject gate : gates) {
+            GateBinaryCodecTest.assertSameGate(gate, reader.read(buf));
+        }
+        assertEquals(0, buf.readableBytes());
+    }
+
+    @Test
+    void estimateIsAnUpperBound() {
+        Set<ResourceKey<Level>> dimensions = new HashSet<>();
+        Set<UUID> players = new HashSet<>();
+        for (GateObject gate : randomGates(new Random(5), 200)) {
+            FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+            GateWireCodec.writeTables(buf, List.of(gate)).write(buf, gate);
+
+            int estimate = GateWireCodec.estimateSize(gate, dimensions, players);
+            assertTrue(buf.readableBytes() <= estimate, buf.readableBytes() + " > " + estimate);
+        }
+        // Sizing never records anything
+        assertTrue(dimensions.isEmpty() && players.isEmpty());
+    }
+
+    @Test
+    void rejectsIndexesOutsideTheTables() {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        buf.writeVarInt(0);  // no dimensions
+        buf.writeVarInt(0);  // no players
+        buf.writeVarLong(1);
+        buf.writeByte(0);
+        buf.writeLong(GateAddress.pack(new int[]{1, 2, 3, 4, 5, 6}));
+        buf.writeVarInt(0);  // no dimension
+        buf.writeVarInt(5);  // creator index past the empty player table
+
+        GateWireCodec codec = GateWireCodec.readTables(buf);
+        assertThrows(DecoderException.class, () -> codec.read(buf));
+    }
+
+    static List<GateObject> randomGates(Random random, int count) {
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            players.add(new UUID(random.nextLong(), random.nextLong()));
+        }
+
+        List<GateObject> gates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int[] chevrons = new int[6 + random.nextInt(4)];
+            for (int c = 0; c < chevrons.length; c++) {
+                chevrons[c] = random.nextInt(39);
+            }
+            List<UUID> whitelist = new ArrayList<>();
+            List<UUID> blacklist = new ArrayList<>();
+            for (int p = random.nextInt(3); p > 0; p--) {
+                whitelist.add(players.get(random.nextInt(players.size())));
+            }
+            for (int p = random.nextInt(2); p > 0; p--) {
+                blacklist.add(players.get(random.nextInt(players.size())));
+            }
+
+            GateObject gate = new GateObject("Gate " + i + " é", GateInterner.dimension("sgjourney:planet_" + random.nextInt(4)),
+                    random.nextBoolean(), chevrons, random.nextBoolean(), random.nextBoolean(), whitelist, blacklist,
+                    random.nextBoolean(), players.get(random.nextInt(players.size())), random.nextBoolean());
+            gate.setId(1 + random.nextInt(1 << 20));
+            gates.add(gate);
+        }
+        return gates;
+    }
+}
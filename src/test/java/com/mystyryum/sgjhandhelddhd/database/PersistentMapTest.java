@@ -0,0 +1,109 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistentMapTest {
+
+    /** Key whose hash code only takes four values, so most keys collide on the full hash. */
+    private record Colliding(int id) {
+        @Override
+        public int hashCode() {
+            return id & 3;
+        }
+    }
+
+    @Test
+    void leavesEarlierVersionsUntouched() {
+        PersistentMap<String, Integer> first = PersistentMap.<String, Integer>empty().with("a", 1).with("b", 2);
+        PersistentMap<String, Integer> second = first.with("a", 10).without("b");
+
+        assertEquals(1, first.get("a"));
+        assertEquals(2, first.get("b"));
+        assertEquals(2, first.size());
+        assertEquals(10, second.get("a"));
+        assertNull(second.get("b"));
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    void returnsItselfWhenNothingChanges() {
+        Integer one = 1;
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().with("a", one);
+
+        assertSame(map, map.with("a", one));
+        assertSame(map, map.without("missing"));
+        assertSame(map, map.update("a", value -> value));
+    }
+
+    @Test
+    void removesConditionallyByIdentity() {
+        String value = new String("gate");
+        PersistentMap<Integer, String> map = PersistentMap.<Integer, String>empty().with(1, value);
+
+        assertSame(map, map.without(1, new String("gate")));
+        assertTrue(map.without(1, value).isEmpty());
+    }
+
+    @Test
+    void updateRemovesOnNull() {
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().with("a", 1);
+
+        assertEquals(2, map.update("a", value -> value + 1).get("a"));
+        assertEquals(5, map.update("b", value -> value == null ? 5 : value).get("b"));
+        assertFalse(map.update("a", value -> null).containsKey("a"));
+    }
+
+    @Test
+    void acceptsANullKey() {
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().with(null, 1).with("a", 2);
+
+        assertEquals(1, map.get(null));
+        assertEquals(2, map.size());
+        assertNull(map.without(null).get(null));
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomChanges() {
+        Random random = new Random(11);
+        Map<Object, Integer> expected = new HashMap<>();
+        PersistentMap<Object, Integer> map = PersistentMap.empty();
+
+        for (int step = 0; step < 50_000; step++) {
+            // Mix plain keys with colliding ones, so both trie and collision nodes are exercised
+            int id = random.nextInt(2_000);
+            Object key = random.nextBoolean() ? Long.valueOf(id) : new Colliding(id);
+            if (random.nextInt(3) == 0) {
+                map = map.without(key);
+                expected.remove(key);
+            } else {
+                map = map.with(key, step);
+                expected.put(key, step);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (Map.Entry<Object, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        Map<Object, Integer> iterated = new HashMap<>();
+        map.forEach(iterated::put);
+        assertEquals(expected, iterated);
+
+        // Emptying the map folds every node away again
+        for (Object key : expected.keySet()) {
+            map = map.without(key);
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.values().iterator().hasNext());
+    }
+}
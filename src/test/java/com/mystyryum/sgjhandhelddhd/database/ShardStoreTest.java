@@ -0,0 +1,57 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.mystyryum.sgjhandhelddhd.database.GataBaseTest.table;
+import static com.mystyryum.sgjhandhelddhd.database.GateJsonReaderTest.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardStoreTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void loadsWhatWasSaved() throws IOException {
+        store().save(table("Abydos", "Chulak"), Set.of());
+
+        List<String> loaded = new ArrayList<>();
+        assertTrue(store().load(gate -> loaded.add(gate.getName())));
+        assertEquals(List.of("Abydos", "Chulak"), sorted(loaded));
+    }
+
+    @Test
+    void loadsADamagedShardFromItsBackupOnly() throws IOException {
+        ShardStore store = store();
+        store.save(table("Abydos", "Chulak"), Set.of());
+        store.backup(table("Abydos", "Chulak"), Set.of());
+
+        // Replace the shard with legacy JSON that stops part way through its second entry
+        Files.write(new File(directory, "shards/minecraft@overworld.shard").toPath(),
+                ("[" + entry("Abydos", 1) + ",{\"name\":").getBytes(StandardCharsets.UTF_8));
+
+        List<String> loaded = new ArrayList<>();
+        assertFalse(store().load(gate -> loaded.add(gate.getName())));
+        assertEquals(List.of("Abydos", "Chulak"), sorted(loaded));
+    }
+
+    private ShardStore store() {
+        return new ShardStore(new File(directory, "shards"), new File(directory, "backup-shards"));
+    }
+
+    private static List<String> sorted(List<String> names) {
+        names.sort(null);
+        return names;
+    }
+}
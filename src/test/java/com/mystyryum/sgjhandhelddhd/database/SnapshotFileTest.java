@@ -0,0 +1,102 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SnapshotFileTest {
+
+    private static final byte[] PAYLOAD = "[{\"name\":\"Abydos\"},{\"name\":\"Chulak\"}]".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    File directory;
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        File file = new File(directory, "GataBase.json");
+        SnapshotFile.write(file, PAYLOAD, "json");
+
+        SnapshotFile.Contents contents = SnapshotFile.read(file);
+        assertEquals(SnapshotFile.Status.VALID, contents.getStatus());
+        assertEquals("json", contents.getFormat());
+        assertEquals(new String(PAYLOAD, StandardCharsets.UTF_8), new String(contents.getPayload(), StandardCharsets.UTF_8));
+        assertFalse(new File(directory, "GataBase.json.tmp").exists());
+    }
+
+    @Test
+    void detectsBadChecksum() throws IOException {
+        File file = new File(directory, "GataBase.json");
+        SnapshotFile.write(file, PAYLOAD, "json");
+
+        // Same length, one payload byte changed
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 4);
+            raf.write('X');
+        }
+
+        assertEquals(SnapshotFile.Status.CORRUPT, SnapshotFile.read(file).getStatus());
+    }
+
+    @Test
+    void detectsTruncatedPayload() throws IOException {
+        File file = new File(directory, "GataBase.json");
+        SnapshotFile.write(file, PAYLOAD, "json");
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+
+        assertEquals(SnapshotFile.Status.CORRUPT, SnapshotFile.read(file).getStatus());
+    }
+
+    @Test
+    void detectsDamagedHeader() throws IOException {
+        File file = new File(directory, "GataBase.json");
+        SnapshotFile.write(file, PAYLOAD, "json");
+        String written = new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII);
+        String header = written.substring(0, written.indexOf('\n'));
+
+        // Cut off inside the header line
+        File cut = new File(directory, "cut.json");
+        Files.write(cut.toPath(), header.substring(0, header.length() - 3).getBytes(StandardCharsets.US_ASCII));
+        assertEquals(SnapshotFile.Status.CORRUPT, SnapshotFile.read(cut).getStatus());
+
+        // Length field no longer a number
+        File garbled = new File(directory, "garbled.json");
+        Files.write(garbled.toPath(), written.replace("length=", "length=x")
+                .getBytes(StandardCharsets.US_ASCII));
+        assertEquals(SnapshotFile.Status.CORRUPT, SnapshotFile.read(garbled).getStatus());
+    }
+
+    @Test
+    void replacesAnExistingSnapshot() throws IOException {
+        File file = new File(directory, "GataBase.json");
+        SnapshotFile.write(file, PAYLOAD, "json");
+        SnapshotFile.write(file, "[]".getBytes(StandardCharsets.UTF_8), "json");
+
+        SnapshotFile.Contents contents = SnapshotFile.read(file);
+        assertEquals(SnapshotFile.Status.VALID, contents.getStatus());
+        assertEquals("[]", new String(contents.getPayload(), StandardCharsets.UTF_8));
+        assertFalse(new File(directory, "GataBase.json.tmp").exists());
+    }
+
+    @Test
+    void acceptsHeaderlessAndEmptyFiles() throws IOException {
+        File legacy = new File(directory, "legacy.json");
+        Files.write(legacy.toPath(), PAYLOAD);
+        File empty = new File(directory, "empty.json");
+        Files.write(empty.toPath(), new byte[0]);
+
+        assertEquals(SnapshotFile.Status.LEGACY, SnapshotFile.read(legacy).getStatus());
+        assertEquals(SnapshotFile.Status.EMPTY, SnapshotFile.read(empty).getStatus());
+        assertEquals(SnapshotFile.Status.EMPTY, SnapshotFile.read(new File(directory, "missing.json")).getStatus());
+    }
+}
@@ -0,0 +1,130 @@
+package com.mystyryum.sgjhandhelddhd.database;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.mystyryum.sgjhandhelddhd.database.GataBaseTest.table;
+import static com.mystyryum.sgjhandhelddhd.database.GateJsonReaderTest.entry;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotGateStoreTest {
+
+    @TempDir
+    File directory;
+
+    @Test
+    void loadsWhatWasSaved() throws IOException {
+        SnapshotGateStore store = store();
+        store.save(table("Abydos", "Chulak"), Set.of());
+
+        List<String> loaded = new ArrayList<>();
+        assertTrue(store.load(gate -> loaded.add(gate.getName())));
+        assertEquals(List.of("Abydos", "Chulak"), sorted(loaded));
+    }
+
+    @Test
+    void fallsBackToTheBackupWhenTheChecksumFails() throws IOException {
+        SnapshotGateStore store = store();
+        store.save(table("Abydos", "Chulak"), Set.of());
+        store.backup(table("Abydos"), Set.of());
+
+        // Same length, last payload byte changed
+        try (RandomAccessFile raf = new RandomAccessFile(mainFile(), "rw")) {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xFF);
+        }
+
+        List<String> loaded = new ArrayList<>();
+        assertFalse(store.load(gate -> loaded.add(gate.getName())));
+        assertEquals(List.of("Abydos"), loaded);
+        assertTrue(new File(directory, "GataBase.json.corrupt").exists());
+    }
+
+    @Test
+    void fallsBackToTheBackupWhenThePayloadIsTruncated() throws IOException {
+        SnapshotGateStore store = store();
+        store.save(table("Abydos", "Chulak"), Set.of());
+        store.backup(table("Abydos"), Set.of());
+
+        try (RandomAccessFile raf = new RandomAccessFile(mainFile(), "rw")) {
+            raf.setLength(raf.length() - 10);
+        }
+
+        List<String> loaded = new ArrayList<>();
+        assertFalse(store.load(gate -> loaded.add(gate.getName())));
+        assertEquals(List.of("Abydos"), loaded);
+        assertTrue(new File(directory, "GataBase.json.corrupt").exists());
+    }
+
+    @Test
+    void loadsNothingWhenTheBackupIsDamagedToo() throws IOException {
+        SnapshotGateStore store = store();
+        store.save(table("Abydos"), Set.of());
+        store.backup(table("Abydos"), Set.of());
+        for (File file : new File[]{mainFile(), new File(directory, "backup.json")}) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(raf.length() - 1);
+            }
+        }
+
+        List<String> loaded = new ArrayList<>();
+        assertFalse(store.load(gate -> loaded.add(gate.getName())));
+        assertTrue(loaded.isEmpty());
+    }
+
+    @Test
+    void loadsEachGateOnceWhenALegacyFileBreaksPartWay() throws IOException {
+        SnapshotGateStore store = store();
+        store.backup(table("Abydos", "Chulak"), Set.of());
+        // Two good entries, then the file stops in the middle of the third
+        Files.write(mainFile().toPath(), ("[" + entry("Abydos", 1) + "," + entry("Chulak", 2) + ",{\"name\":")
+                .getBytes(StandardCharsets.UTF_8));
+
+        List<String> loaded = new ArrayList<>();
+        assertFalse(store.load(gate -> loaded.add(gate.getName())));
+        assertEquals(List.of("Abydos", "Chulak"), sorted(loaded));
+        assertTrue(new File(directory, "GataBase.json.corrupt").exists());
+    }
+
+    @Test
+    void setsInvalidLegacyEntriesAside() throws IOException {
+        Files.write(mainFile().toPath(), ("[" + entry("Abydos", 1) + ",{\"name\":\"Broken\"}]").getBytes(StandardCharsets.UTF_8));
+
+        List<String> loaded = new ArrayList<>();
+        assertTrue(store().load(gate -> loaded.add(gate.getName())));
+        assertEquals(List.of("Abydos"), loaded);
+
+        File[] rejected = directory.listFiles((dir, name) -> name.startsWith("GataBase.json.rejected-") && name.endsWith(".json"));
+        assertEquals(1, rejected.length);
+        String aside = Files.readString(rejected[0].toPath());
+        assertTrue(aside.contains("Broken"));
+        assertFalse(aside.contains("Abydos"));
+    }
+
+    private SnapshotGateStore store() {
+        return new SnapshotGateStore(mainFile(), new File(directory, "backup.json"));
+    }
+
+    private File mainFile() {
+        return new File(directory, "GataBase.json");
+    }
+
+
+    private static List<String> sorted(List<String> names) {
+        names.sort(null);
+        return names;
+    }
+}